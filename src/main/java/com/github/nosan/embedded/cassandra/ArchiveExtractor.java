@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+
+final class ArchiveExtractor {
+
+	private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private static final PosixFilePermission[] PERMISSIONS = {PosixFilePermission.OTHERS_EXECUTE,
+			PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_READ, PosixFilePermission.GROUP_EXECUTE,
+			PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_READ, PosixFilePermission.OWNER_EXECUTE,
+			PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_READ};
+
+	private final int threads;
+
+	private final Set<String> excludes;
+
+	private final Set<String> includes;
+
+	ArchiveExtractor(int threads, Set<String> excludes) {
+		this(threads, excludes, null);
+	}
+
+	ArchiveExtractor(int threads, Set<String> excludes, Set<String> includes) {
+		this.threads = Math.max(1, threads);
+		this.excludes = excludes;
+		this.includes = includes;
+	}
+
+	void extract(ArchiveInputStream archiveInputStream, Path destination) throws IOException {
+		boolean posix = destination.getFileSystem().supportedFileAttributeViews().contains("posix");
+		if (this.threads == 1) {
+			ArchiveEntry entry;
+			while ((entry = archiveInputStream.getNextEntry()) != null) {
+				if (isSkipped(entry)) {
+					continue;
+				}
+				Path path = resolve(destination, entry);
+				if (entry.isDirectory()) {
+					createDirectory(path, entry, posix);
+				}
+				else {
+					createParentDirectory(path);
+					Files.copy(archiveInputStream, path, StandardCopyOption.REPLACE_EXISTING);
+					setPermissions(path, entry, posix);
+				}
+			}
+			return;
+		}
+		//the calling thread decompresses entries, small files are written by workers from pooled buffers,
+		//the pool bounds the memory and makes the calling thread wait if workers are behind.
+		BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(this.threads * 2);
+		for (int i = 0; i < this.threads * 2; i++) {
+			buffers.add(new byte[BUFFER_SIZE]);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+			Thread thread = new Thread(runnable, "cassandra-extract-" + THREAD_ID.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			ArchiveEntry entry;
+			while ((entry = archiveInputStream.getNextEntry()) != null) {
+				checkFailures(futures);
+				if (isSkipped(entry)) {
+					continue;
+				}
+				Path path = resolve(destination, entry);
+				if (entry.isDirectory()) {
+					createDirectory(path, entry, posix);
+				}
+				else if (entry.getSize() < 0 || entry.getSize() > BUFFER_SIZE) {
+					createParentDirectory(path);
+					Files.copy(archiveInputStream, path, StandardCopyOption.REPLACE_EXISTING);
+					setPermissions(path, entry, posix);
+				}
+				else {
+					byte[] buffer = buffers.take();
+					int length = read(archiveInputStream, buffer);
+					ArchiveEntry fileEntry = entry;
+					futures.add(executor.submit(() -> {
+						try {
+							createParentDirectory(path);
+							try (OutputStream os = Files.newOutputStream(path)) {
+								os.write(buffer, 0, length);
+							}
+							setPermissions(path, fileEntry, posix);
+						}
+						finally {
+							buffers.add(buffer);
+						}
+						return null;
+					}));
+				}
+			}
+			for (Future<?> future : futures) {
+				get(future);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while extracting an archive");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private boolean isSkipped(ArchiveEntry entry) {
+		if (this.excludes.isEmpty() && this.includes == null) {
+			return false;
+		}
+		Path path = Paths.get(entry.getName()).normalize();
+		//excludes and includes are relative to Cassandra home, which is usually the root directory of the archive
+		if (path.getNameCount() > 1 && path.getName(0).toString().startsWith("apache-cassandra")) {
+			path = path.subpath(1, path.getNameCount());
+		}
+		if (this.includes != null && (entry.isDirectory()
+				|| !this.includes.contains(path.toString().replace('\\', '/')))) {
+			return true;
+		}
+		for (String exclude : this.excludes) {
+			if (path.startsWith(exclude)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void checkFailures(List<Future<?>> futures) throws IOException, InterruptedException {
+		for (Future<?> future : futures) {
+			if (future.isDone()) {
+				get(future);
+			}
+		}
+		futures.removeIf(Future::isDone);
+	}
+
+	private static void get(Future<?> future) throws IOException, InterruptedException {
+		try {
+			future.get();
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private static int read(InputStream inputStream, byte[] buffer) throws IOException {
+		int length = 0;
+		int read;
+		while (length < buffer.length && (read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+		}
+		return length;
+	}
+
+	private static Path resolve(Path destination, ArchiveEntry entry) {
+		return destination.resolve(entry.getName()).normalize().toAbsolutePath();
+	}
+
+	private static void createDirectory(Path directory, ArchiveEntry entry, boolean posix) throws IOException {
+		Files.createDirectories(directory);
+		setPermissions(directory, entry, posix);
+	}
+
+	private static void createParentDirectory(Path file) throws IOException {
+		Path parent = file.getParent();
+		if (!Files.exists(parent)) {
+			Files.createDirectories(parent);
+		}
+	}
+
+	private static void setPermissions(Path path, ArchiveEntry entry, boolean posix) throws IOException {
+		if (!posix || !(entry instanceof TarArchiveEntry)) {
+			return;
+		}
+		//the owner must always be able to read, change and delete the extracted files
+		int mode = ((TarArchiveEntry) entry).getMode() | (entry.isDirectory() ? 0700 : 0600);
+		Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+		for (int i = 0; i < PERMISSIONS.length; i++) {
+			if ((mode & (1 << i)) != 0) {
+				permissions.add(PERMISSIONS[i]);
+			}
+		}
+		Files.setPosixFilePermissions(path, permissions);
+	}
+
+}
@@ -17,6 +17,9 @@
 package com.github.nosan.embedded.cassandra;
 
 import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Simple interface that allows the {@code Cassandra} to be {@link #start() started} and {@link #stop() stopped}.
@@ -46,6 +49,51 @@ public interface Cassandra {
 	 */
 	void stop() throws CassandraException;
 
+	/**
+	 * Starts the {@code Cassandra} asynchronously using the given {@link Executor}. The returned future is completed
+	 * with the {@link Settings} once the {@code Cassandra} has started, or exceptionally if it cannot be started.
+	 * Cancelling the returned future stops the {@code Cassandra}.
+	 *
+	 * @param executor the executor to use
+	 * @return the future
+	 * @see #start()
+	 * @since 4.0.7
+	 */
+	default CompletableFuture<Settings> startAsync(Executor executor) {
+		Objects.requireNonNull(executor, "Executor must not be null");
+		CompletableFuture<Settings> future = new CompletableFuture<>();
+		executor.execute(() -> {
+			if (future.isCancelled()) {
+				return;
+			}
+			try {
+				start();
+				if (!future.complete(getSettings())) {
+					//cancelled while starting
+					stop();
+				}
+			}
+			catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Stops the {@code Cassandra} asynchronously using the given {@link Executor}. The returned future is completed
+	 * once the {@code Cassandra} has stopped, or exceptionally if it cannot be stopped.
+	 *
+	 * @param executor the executor to use
+	 * @return the future
+	 * @see #stop()
+	 * @since 4.0.7
+	 */
+	default CompletableFuture<Void> stopAsync(Executor executor) {
+		Objects.requireNonNull(executor, "Executor must not be null");
+		return CompletableFuture.runAsync(this::stop, executor);
+	}
+
 	/**
 	 * Checks whether this Cassandra is running.
 	 *
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -60,6 +61,12 @@ public class CassandraBuilder {
 
 	private static final AtomicInteger CASSANDRA_ID = new AtomicInteger();
 
+	private static final String EPHEMERAL_STORAGE_DIRECTORY = "/dev/shm";
+
+	private static final long EPHEMERAL_STORAGE_MIN_FREE_SPACE = 512L * 1024 * 1024;
+
+	private static final String PORT_LEASE_DIRECTORY = "embedded-cassandra-ports";
+
 	private final Map<String, Object> environmentVariables = new LinkedHashMap<>();
 
 	private final Map<String, Object> configProperties = new LinkedHashMap<>();
@@ -86,6 +93,20 @@ public class CassandraBuilder {
 
 	private WorkingDirectoryInitializer workingDirectoryInitializer;
 
+	private WorkingDirectoryPool workingDirectoryPool;
+
+	private String workingDirectoryPoolKey;
+
+	private boolean ephemeralStorage = false;
+
+	private boolean directLaunch = false;
+
+	private boolean classDataSharing = false;
+
+	private int fromPort;
+
+	private int toPort;
+
 	/**
 	 * Build a new {@link Cassandra} instance.
 	 *
@@ -94,20 +115,22 @@ public class CassandraBuilder {
 	public Cassandra build() {
 		String name = (this.name != null) ? this.name : "cassandra-" + CASSANDRA_ID.getAndIncrement();
 		Version version = (this.version != null) ? this.version : DEFAULT_VERSION;
-		Path workingDirectory;
-		try {
-			IOSupplier<? extends Path> workingDirectorySupplier = this.workingDirectorySupplier;
-			if (workingDirectorySupplier != null) {
-				workingDirectory = workingDirectorySupplier.get();
-				Objects.requireNonNull(workingDirectory, "Working Directory must not be null");
+		Path workingDirectory = null;
+		if (this.workingDirectoryPool == null) {
+			try {
+				IOSupplier<? extends Path> workingDirectorySupplier = this.workingDirectorySupplier;
+				if (workingDirectorySupplier != null) {
+					workingDirectory = workingDirectorySupplier.get();
+					Objects.requireNonNull(workingDirectory, "Working Directory must not be null");
+				}
+				else {
+					workingDirectory = Files.createTempDirectory("");
+				}
 			}
-			else {
-				workingDirectory = Files.createTempDirectory("");
+			catch (IOException ex) {
+				throw new UncheckedIOException("Unable to get a working directory", ex);
 			}
 		}
-		catch (IOException ex) {
-			throw new UncheckedIOException("Unable to get a working directory", ex);
-		}
 		WorkingDirectoryInitializer workingDirectoryInitializer = this.workingDirectoryInitializer;
 		if (workingDirectoryInitializer == null) {
 			workingDirectoryInitializer = new DefaultWorkingDirectoryInitializer(new WebCassandraDirectoryProvider(
@@ -136,11 +159,31 @@ public class CassandraBuilder {
 				this.workingDirectoryCustomizers);
 		workingDirectoryCustomizers.removeIf(Objects::isNull);
 		Map<String, Object> configProperties = new LinkedHashMap<>(this.configProperties);
+		EphemeralStorage ephemeralStorage = null;
+		if (this.ephemeralStorage) {
+			ephemeralStorage = new EphemeralStorage(Paths.get(EPHEMERAL_STORAGE_DIRECTORY),
+					EPHEMERAL_STORAGE_MIN_FREE_SPACE);
+		}
+		ClassDataSharing classDataSharing = this.classDataSharing ? new ClassDataSharing() : null;
+		PortAllocator portAllocator = null;
+		if (this.fromPort > 0) {
+			portAllocator = new PortAllocator(Paths.get(System.getProperty("java.io.tmpdir"), PORT_LEASE_DIRECTORY),
+					this.fromPort, this.toPort);
+		}
 		CassandraDatabaseFactory databaseFactory = new DefaultCassandraDatabaseFactory(name, version,
-				environmentVariables, configProperties, systemProperties, jvmOptions);
+				environmentVariables, configProperties, systemProperties, jvmOptions, ephemeralStorage,
+				this.directLaunch, classDataSharing, portAllocator);
+		String workingDirectoryKey = null;
+		if (this.workingDirectoryPool != null) {
+			//a working directory is leased when Cassandra is started
+			workingDirectoryKey = WorkingDirectoryPool.getKey(version, this.workingDirectoryPoolKey,
+					environmentVariables, configProperties, systemProperties, jvmOptions);
+			workingDirectory = this.workingDirectoryPool.getDirectory(workingDirectoryKey);
+		}
 		return new DefaultCassandra(name, version, workingDirectory.normalize().toAbsolutePath(),
 				this.registerShutdownHook, workingDirectoryInitializer, workingDirectoryDestroyer, startupTimeout,
-				workingDirectoryCustomizers, databaseFactory, logger);
+				workingDirectoryCustomizers, databaseFactory, logger, this.workingDirectoryPool, workingDirectoryKey,
+				ephemeralStorage, classDataSharing, portAllocator);
 	}
 
 	/**
@@ -313,6 +356,127 @@ public class CassandraBuilder {
 		return this;
 	}
 
+	/**
+	 * Sets whether Cassandra should keep its data in memory. If enabled, <b>data, commitlog, hints, saved_caches and
+	 * cdc_raw</b> directories are placed on a memory-backed file system ({@code /dev/shm}), and deleted when Cassandra
+	 * is stopped. Directories explicitly configured with config properties are kept.
+	 * <p>If the memory-backed file system is not available, or it has less than 512MB of usable space, the working
+	 * directory is used instead.
+	 * <p>Defaults to {@code false}
+	 *
+	 * @param ephemeralStorage whether data should be kept in memory
+	 * @return this builder
+	 * @since 4.0.7
+	 */
+	public CassandraBuilder ephemeralStorage(boolean ephemeralStorage) {
+		this.ephemeralStorage = ephemeralStorage;
+		return this;
+	}
+
+	/**
+	 * Sets whether Cassandra should be launched directly with {@code java}, without {@code bin/cassandra} and {@code
+	 * conf/cassandra-env.sh}. If enabled, the command is built the same way as {@code cassandra-env.sh} does, without
+	 * running any shell scripts: {@code conf/jvm*.options}, GC logging, heap size, JMX and the other defaults of the
+	 * script, and {@link #addJvmOptions(String...) JVM options}, {@link #addSystemProperty(String, Object) system
+	 * properties} and {@code JVM_OPTS}, {@code JVM_EXTRA_OPTS}, {@code MAX_HEAP_SIZE}, {@code HEAP_NEWSIZE}, {@code
+	 * LOCAL_JMX}, {@code CASSANDRA_LOG_DIR}, {@code CASSANDRA_HEAPDUMP_DIR}, {@code MX4J_ADDRESS} and {@code
+	 * MX4J_PORT} environment variables are applied. Of {@code cassandra-env.sh}, only unconditional assignments of
+	 * plain values, such as {@code JMX_PORT="7199"}, are applied.
+	 * <p>Only Cassandra 3.0 and newer on Unix-like systems can be launched directly, otherwise this option is
+	 * ignored.
+	 * <p>Defaults to {@code false}
+	 *
+	 * @param directLaunch whether Cassandra should be launched directly
+	 * @return this builder
+	 * @since 4.0.7
+	 */
+	public CassandraBuilder directLaunch(boolean directLaunch) {
+		this.directLaunch = directLaunch;
+		return this;
+	}
+
+	/**
+	 * Sets whether an application class data sharing (AppCDS) archive should be used to speed up class loading of
+	 * Cassandra. If enabled, the first launch for a given Cassandra directory and JDK records loaded classes with
+	 * {@code -XX:ArchiveClassesAtExit}, and the archive is stored next to the Cassandra directory once Cassandra is
+	 * stopped. Subsequent launches use the archive with {@code -XX:SharedArchiveFile}. An archive is recreated when
+	 * either the Cassandra directory or the JDK changes.
+	 * <p>Cassandra is {@link #directLaunch(boolean) launched directly} if this option is enabled, an archive cannot be
+	 * created with the classpath of {@code bin/cassandra}. The jars of the Cassandra directory are used instead of
+	 * their copies, so that an archive is shared by all working directories.
+	 * <p>Requires Java 13 or newer, Cassandra 3.0 or newer on a Unix-like system, and a working directory initialized
+	 * by {@link DefaultWorkingDirectoryInitializer} whose {@code lib} and {@code conf/jvm*.options} are not
+	 * customized, otherwise this option is ignored.
+	 * <p>Defaults to {@code false}
+	 *
+	 * @param classDataSharing whether class data sharing should be used
+	 * @return this builder
+	 * @since 4.0.7
+	 */
+	public CassandraBuilder classDataSharing(boolean classDataSharing) {
+		this.classDataSharing = classDataSharing;
+		return this;
+	}
+
+	/**
+	 * Sets the range of ports, which are used instead of {@code 0} ports. A port is leased with a file lock in {@code
+	 * java.io.tmpdir} directory, so Cassandra instances started by several JVMs on the same host never get the same
+	 * port. Leases are released when Cassandra is stopped, or when the JVM that leased them exits.
+	 * <p>Defaults to ports which are chosen by the operating system.
+	 *
+	 * @param fromPort the first port of the range (inclusive)
+	 * @param toPort the last port of the range (inclusive)
+	 * @return this builder
+	 * @since 4.0.7
+	 */
+	public CassandraBuilder portRange(int fromPort, int toPort) {
+		if (fromPort < 1 || toPort > 65535 || fromPort > toPort) {
+			throw new IllegalArgumentException(String.format("Port range [%d, %d] is invalid", fromPort, toPort));
+		}
+		this.fromPort = fromPort;
+		this.toPort = toPort;
+		return this;
+	}
+
+	/**
+	 * Sets the {@link WorkingDirectoryPool}. If set, the working directory is leased from the pool when Cassandra is
+	 * started instead of being created with the working directory supplier, it is initialized only once, and it is
+	 * given back to the pool when Cassandra is stopped instead of being destroyed by the
+	 * {@link WorkingDirectoryDestroyer}. Working directories are shared by instances with the same version,
+	 * environment variables, config properties, system properties and JVM options.
+	 * <p>Working directory customizers are applied on every start and they are not compared. Use
+	 * {@link #workingDirectoryPool(WorkingDirectoryPool, String)} to keep working directories of instances with
+	 * different customizers apart.
+	 * <p>Defaults to {@code null}
+	 *
+	 * @param workingDirectoryPool the working directory pool
+	 * @return this builder
+	 * @since 4.0.7
+	 */
+	public CassandraBuilder workingDirectoryPool(WorkingDirectoryPool workingDirectoryPool) {
+		Objects.requireNonNull(workingDirectoryPool, "Working Directory Pool must not be null");
+		this.workingDirectoryPool = workingDirectoryPool;
+		this.workingDirectoryPoolKey = null;
+		return this;
+	}
+
+	/**
+	 * Sets the {@link WorkingDirectoryPool} the same way as {@link #workingDirectoryPool(WorkingDirectoryPool)}
+	 * does, but working directories are shared only by instances built with the same key.
+	 *
+	 * @param workingDirectoryPool the working directory pool
+	 * @param key the key, e.g. a name of a test configuration
+	 * @return this builder
+	 * @since 4.0.7
+	 */
+	public CassandraBuilder workingDirectoryPool(WorkingDirectoryPool workingDirectoryPool, String key) {
+		Objects.requireNonNull(workingDirectoryPool, "Working Directory Pool must not be null");
+		Objects.requireNonNull(key, "Key must not be null");
+		this.workingDirectoryPool = workingDirectoryPool;
+		this.workingDirectoryPoolKey = key;
+		return this;
+	}
+
 	/**
 	 * Sets the {@link WorkingDirectoryCustomizer}. Setting this value will replace any previously configured
 	 * customizers.
@@ -21,6 +21,7 @@ package com.github.nosan.embedded.cassandra;
  *
  * @author Dmytro Nosan
  * @see SimpleSeedProviderConfigurator
+ * @see FastBootConfigurator
  * @see CassandraBuilder#configure(CassandraBuilderConfigurator)
  * @since 4.0.0
  */
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+/**
+ * A {@link Cassandra} that keeps a number of {@link Cassandra} instances, built by the {@link CassandraBuilder},
+ * started in the background. {@link #start()} hands over an already started instance, and a replacement is started
+ * in the background right away. {@link #stop()} stops the handed over instance, the next {@link #start()} hands over
+ * a fresh instance.
+ * <p>Instances are started one after another, and the number of standby instances is limited, so that they use no
+ * more than a half of the available processors and a half of the physical memory, assuming that each instance uses
+ * the default heap size as calculated by {@code cassandra-env.sh}.
+ * <p><b>Note!</b> Several instances run at the same time, thus the builder must be configured with random ports:
+ * <pre>
+ * {@code
+ * CassandraBuilder builder = new CassandraBuilder()
+ *         .addSystemProperty("cassandra.native_transport_port", 0)
+ *         .addSystemProperty("cassandra.rpc_port", 0)
+ *         .addSystemProperty("cassandra.storage_port", 0)
+ *         .addSystemProperty("cassandra.jmx.local.port", 0)
+ *         .configure(new SimpleSeedProviderConfigurator("localhost:0"));
+ * try (CassandraPool cassandra = new CassandraPool(builder, 2)) {
+ *     cassandra.start();
+ *     //...
+ *     cassandra.stop();
+ * }
+ * }
+ * </pre>
+ *
+ * @author Dmytro Nosan
+ * @see CassandraBuilder
+ * @since 4.0.7
+ */
+public final class CassandraPool implements Cassandra, AutoCloseable {
+
+	private static final Logger LOGGER = Logger.get(CassandraPool.class);
+
+	private static final AtomicInteger POOL_ID = new AtomicInteger();
+
+	private final Supplier<? extends Cassandra> factory;
+
+	private final int size;
+
+	private final Deque<Standby> standbys = new ArrayDeque<>();
+
+	private final ExecutorService executor;
+
+	private volatile Cassandra cassandra;
+
+	private volatile boolean started;
+
+	private boolean closed;
+
+	/**
+	 * Creates a new {@link CassandraPool} and starts the standby instances in the background.
+	 *
+	 * @param builder the builder to build instances
+	 * @param size the number of standby instances, it can be reduced according to available processors and memory
+	 */
+	public CassandraPool(CassandraBuilder builder, int size) {
+		this(Objects.requireNonNull(builder, "Cassandra Builder must not be null")::build, size, getMaxSize());
+	}
+
+	CassandraPool(Supplier<? extends Cassandra> factory, int size, int maxSize) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Size must be greater than 0");
+		}
+		this.factory = factory;
+		this.size = Math.min(size, maxSize);
+		if (this.size < size) {
+			LOGGER.info("Cassandra pool size is limited to {0} by available processors and memory", this.size);
+		}
+		int id = POOL_ID.incrementAndGet();
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "cassandra-pool-" + id);
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			synchronized (this) {
+				for (int i = 0; i < this.size; i++) {
+					this.standbys.add(boot());
+				}
+			}
+		}
+		catch (RuntimeException ex) {
+			close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Gets the number of standby instances.
+	 *
+	 * @return the size
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	@Override
+	public synchronized void start() throws CassandraException {
+		if (this.closed) {
+			throw new IllegalStateException("Cassandra pool has been closed");
+		}
+		if (this.started) {
+			return;
+		}
+		Standby standby = this.standbys.remove();
+		this.standbys.add(boot());
+		this.cassandra = standby.cassandra;
+		try {
+			standby.started.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			standby.started.cancel(false);
+			throw new CassandraException("Interrupted while waiting for " + standby.cassandra + " to start", ex);
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof CassandraException) {
+				throw (CassandraException) ex.getCause();
+			}
+			throw new CassandraException("Unable to start " + standby.cassandra, ex.getCause());
+		}
+		this.started = true;
+	}
+
+	@Override
+	public synchronized void stop() throws CassandraException {
+		if (!this.started) {
+			return;
+		}
+		this.started = false;
+		this.cassandra.stop();
+	}
+
+	/**
+	 * Stops the handed over instance and all standby instances.
+	 *
+	 * @throws CassandraException if the handed over instance cannot be stopped
+	 */
+	@Override
+	public synchronized void close() throws CassandraException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			stop();
+		}
+		finally {
+			Standby standby;
+			while ((standby = this.standbys.poll()) != null) {
+				//a standby instance that is being started is killed right away
+				standby.started.cancel(false);
+				try {
+					standby.cassandra.stop();
+				}
+				catch (Exception ex) {
+					LOGGER.warn(ex, "Unable to stop standby {0}", standby.cassandra);
+				}
+			}
+			this.executor.shutdown();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		Cassandra cassandra = this.cassandra;
+		return this.started && cassandra != null && cassandra.isRunning();
+	}
+
+	@Override
+	public String getName() {
+		return current().getName();
+	}
+
+	@Override
+	public Version getVersion() {
+		return current().getVersion();
+	}
+
+	@Override
+	public Path getWorkingDirectory() {
+		return current().getWorkingDirectory();
+	}
+
+	@Override
+	public synchronized Settings getSettings() throws IllegalStateException {
+		Cassandra cassandra = this.cassandra;
+		if (cassandra == null) {
+			throw new IllegalStateException("The getSettings() method was called but start() had not been called");
+		}
+		return cassandra.getSettings();
+	}
+
+	@Override
+	public String toString() {
+		return "CassandraPool{" + "size=" + this.size + '}';
+	}
+
+	private Standby boot() {
+		Cassandra cassandra = this.factory.get();
+		return new Standby(cassandra, cassandra.startAsync(this.executor));
+	}
+
+	private synchronized Cassandra current() {
+		Standby standby = this.standbys.peek();
+		if (this.started || standby == null) {
+			Cassandra cassandra = this.cassandra;
+			if (cassandra == null) {
+				throw new IllegalStateException("Cassandra pool has been closed");
+			}
+			return cassandra;
+		}
+		return standby.cassandra;
+	}
+
+	private static int getMaxSize() {
+		long processors = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		long memory = Math.max(1, DirectCassandraDatabase.HeapSize.TOTAL_MEMORY / 2
+				/ Math.max(1, DirectCassandraDatabase.HeapSize.MAX_HEAP_SIZE));
+		return (int) Math.min(processors, memory);
+	}
+
+	private static final class Standby {
+
+		private final Cassandra cassandra;
+
+		private final CompletableFuture<Settings> started;
+
+		Standby(Cassandra cassandra, CompletableFuture<Settings> started) {
+			this.cassandra = cassandra;
+			this.started = started;
+		}
+
+	}
+
+}
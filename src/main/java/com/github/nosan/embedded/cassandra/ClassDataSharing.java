@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+final class ClassDataSharing {
+
+	static final String ARCHIVE_DIRECTORY = ".cds";
+
+	private static final Logger LOGGER = Logger.get(ClassDataSharing.class);
+
+	private static final String ARCHIVE_SUFFIX = ".jsa";
+
+	private static final String PENDING_SUFFIX = ".jsa.tmp";
+
+	//-XX:ArchiveClassesAtExit is available since JDK 13
+	private static final int MIN_JAVA_VERSION = 13;
+
+	private Path archive;
+
+	private Path pending;
+
+	synchronized List<String> getJvmOptions(Path workingDirectory, Path javaHome) {
+		try {
+			deletePending();
+			Path cassandraDirectory = LaunchDescriptor.getDistribution(workingDirectory);
+			String manifest = (cassandraDirectory != null) ? LaunchDescriptor.getManifest(cassandraDirectory) : null;
+			if (manifest == null) {
+				LOGGER.debug("Class data sharing is not used for ''{0}'', it is not a copy of a Cassandra directory",
+						workingDirectory);
+				return Collections.emptyList();
+			}
+			int javaVersion = LaunchDescriptor.get(workingDirectory).getJavaVersion(javaHome);
+			if (javaVersion < MIN_JAVA_VERSION) {
+				LOGGER.warn("Class data sharing requires Java {0} or newer, ''{1}'' is Java {2}", MIN_JAVA_VERSION,
+						javaHome, javaVersion);
+				return Collections.emptyList();
+			}
+			//an archive is bound to the JDK and to the jars it was created with, they are validated by their size and
+			//last modified time, conf is not a part of an archive, it goes after the jars
+			Path home = javaHome.normalize().toAbsolutePath();
+			List<String> values = new ArrayList<>();
+			values.add(getStamp(home.resolve("lib/modules")));
+			for (String jar : LaunchDescriptor.get(workingDirectory).getClasspath()) {
+				values.add(getStamp(cassandraDirectory.resolve(jar)));
+			}
+			String prefix = "java" + javaVersion + "-" + digest(Collections.singletonList(home.toString())) + "-";
+			String name = prefix + digest(values);
+			Path directory = Files.createDirectories(cassandraDirectory.resolveSibling(ARCHIVE_DIRECTORY));
+			Path archive = directory.resolve(name + ARCHIVE_SUFFIX);
+			if (Files.isRegularFile(archive)) {
+				return Collections.singletonList("-XX:SharedArchiveFile=" + archive);
+			}
+			deleteStale(directory, prefix, archive);
+			this.archive = archive;
+			this.pending = directory.resolve(name + "-" + UUID.randomUUID() + PENDING_SUFFIX);
+			LOGGER.info("Class data sharing archive ''{0}'' will be created when Cassandra is stopped", archive);
+			return Collections.singletonList("-XX:ArchiveClassesAtExit=" + this.pending);
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Class data sharing could not be configured for ''{0}''", workingDirectory);
+			return Collections.emptyList();
+		}
+	}
+
+	synchronized void publish() {
+		Path archive = this.archive;
+		Path pending = this.pending;
+		if (archive == null || pending == null) {
+			return;
+		}
+		try {
+			if (Files.isRegularFile(pending) && Files.size(pending) > 0) {
+				Files.move(pending, archive, StandardCopyOption.ATOMIC_MOVE);
+				LOGGER.info("Class data sharing archive ''{0}'' has been created", archive);
+			}
+		}
+		catch (FileAlreadyExistsException ex) {
+			//created by another instance in the meantime
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Class data sharing archive ''{0}'' could not be created", archive);
+		}
+		finally {
+			deletePending();
+		}
+	}
+
+	private static String getStamp(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		return file + " " + attributes.size() + " " + attributes.lastModifiedTime().toMillis();
+	}
+
+	private static String digest(List<String> values) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+		for (String value : values) {
+			digest.update(value.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private void deletePending() {
+		Path pending = this.pending;
+		this.archive = null;
+		this.pending = null;
+		if (pending == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(pending);
+		}
+		catch (IOException ex) {
+			LOGGER.debug(ex, "''{0}'' could not be deleted", pending);
+		}
+	}
+
+	private static void deleteStale(Path directory, String prefix, Path archive) throws IOException {
+		//archives of the same JDK for a replaced Cassandra directory, or of an updated JDK
+		List<Path> archives;
+		try (Stream<Path> stream = Files.list(directory)) {
+			archives = stream.filter(path -> path.getFileName().toString().startsWith(prefix))
+					.filter(path -> path.getFileName().toString().endsWith(ARCHIVE_SUFFIX))
+					.filter(path -> !path.equals(archive)).collect(Collectors.toList());
+		}
+		for (Path path : archives) {
+			LOGGER.info("Deleting outdated class data sharing archive ''{0}''", path);
+			Files.deleteIfExists(path);
+		}
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+
+/**
+ * A snapshot of the <b>data</b> directory of a stopped {@link Cassandra} instance, that can be used to initialize new
+ * working directories, so an instance starts with schema and data already on disk.
+ * <p>SSTable data and index components ({@code *-Data.db} and {@code *-Index.db}) are stored as hard links, because
+ * Cassandra never modifies them in place. Other files, such as summaries, statistics, commit logs and saved caches,
+ * can be rewritten by Cassandra, so they are copied. Files are copied if hard links cannot be created.
+ * <p><b>Note!</b> A snapshot cannot be captured from an instance that uses
+ * {@link CassandraBuilder#ephemeralStorage(boolean) ephemeral storage}, its data is deleted when it is stopped.
+ * <p>Example:
+ * <pre>
+ * DataSnapshot snapshot = DataSnapshot.of(Paths.get("target/snapshots/schema"));
+ * if (!snapshot.exists()) {
+ *     Cassandra cassandra = new CassandraBuilder().build();
+ *     cassandra.start();
+ *     // load schema and data, then flush
+ *     cassandra.stop();
+ *     snapshot.capture(cassandra);
+ * }
+ * Cassandra cassandra = new CassandraBuilder().addWorkingDirectoryCustomizers(snapshot.restore()).build();
+ * </pre>
+ *
+ * @author Dmytro Nosan
+ * @since 4.0.7
+ */
+public final class DataSnapshot {
+
+	private static final String DATA = "data";
+
+	private final Path directory;
+
+	private DataSnapshot(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Creates a new {@link DataSnapshot} stored in the provided directory.
+	 *
+	 * @param directory the snapshot directory. The last element of the path is the name of the snapshot.
+	 * @return a new {@link DataSnapshot}
+	 */
+	public static DataSnapshot of(Path directory) {
+		Objects.requireNonNull(directory, "Directory must not be null");
+		return new DataSnapshot(directory.normalize().toAbsolutePath());
+	}
+
+	/**
+	 * Gets the snapshot directory.
+	 *
+	 * @return the snapshot directory, never {@code null}
+	 */
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Whether this snapshot has been captured.
+	 *
+	 * @return {@code true} if the snapshot exists
+	 */
+	public boolean exists() {
+		return Files.isDirectory(this.directory);
+	}
+
+	/**
+	 * Captures the <b>data</b> directory of the stopped {@link Cassandra} instance, replacing the existing snapshot.
+	 * The working directory must not be destroyed by the {@link WorkingDirectoryDestroyer}.
+	 *
+	 * @param cassandra the stopped Cassandra instance
+	 * @throws IOException an I/O error occurs
+	 * @throws IllegalStateException if Cassandra is running, there is no data directory, or the data was kept in
+	 * ephemeral storage
+	 */
+	public void capture(Cassandra cassandra) throws IOException {
+		Objects.requireNonNull(cassandra, "Cassandra must not be null");
+		if (cassandra.isRunning()) {
+			throw new IllegalStateException(String.format("%s must be stopped before a snapshot is captured",
+					cassandra));
+		}
+		Path ephemeralMarker = cassandra.getWorkingDirectory().resolve(EphemeralStorage.MARKER_FILE);
+		if (Files.exists(ephemeralMarker)) {
+			List<String> lines = Files.readAllLines(ephemeralMarker, StandardCharsets.UTF_8);
+			throw new IllegalStateException(String.format("%s kept its data in ephemeral storage '%s', which is"
+					+ " deleted when Cassandra is stopped", cassandra, lines.isEmpty() ? "" : lines.get(0)));
+		}
+		Path data = cassandra.getWorkingDirectory().resolve(DATA);
+		if (!Files.isDirectory(data)) {
+			throw new IllegalStateException(String.format("%s does not have a data directory '%s'", cassandra,
+					data));
+		}
+		Files.createDirectories(this.directory.getParent());
+		Path tempDirectory = Files.createTempDirectory(this.directory.getParent(),
+				"." + this.directory.getFileName());
+		try {
+			copy(data, tempDirectory);
+			//the existing snapshot is kept aside until the new one is in place
+			Path oldDirectory = null;
+			if (Files.exists(this.directory)) {
+				oldDirectory = tempDirectory.resolveSibling(tempDirectory.getFileName() + ".old");
+				move(this.directory, oldDirectory);
+			}
+			try {
+				move(tempDirectory, this.directory);
+			}
+			catch (IOException ex) {
+				if (oldDirectory != null) {
+					try {
+						move(oldDirectory, this.directory);
+					}
+					catch (IOException suppressed) {
+						ex.addSuppressed(suppressed);
+					}
+				}
+				throw ex;
+			}
+			FileUtils.delete(oldDirectory);
+		}
+		finally {
+			FileUtils.delete(tempDirectory);
+		}
+	}
+
+	/**
+	 * Creates a {@link WorkingDirectoryCustomizer} that replaces the <b>data</b> directory of the working directory
+	 * with this snapshot.
+	 *
+	 * @return a new working directory customizer
+	 */
+	public WorkingDirectoryCustomizer restore() {
+		return (workingDirectory, version) -> {
+			Objects.requireNonNull(workingDirectory, "Working Directory must not be null");
+			Objects.requireNonNull(version, "Version must not be null");
+			if (!exists()) {
+				throw new IllegalStateException(String.format("Snapshot '%s' does not exist", this.directory));
+			}
+			Path data = workingDirectory.resolve(DATA);
+			FileUtils.delete(data);
+			copy(this.directory, data);
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "DataSnapshot{" + "directory=" + this.directory + '}';
+	}
+
+	private static void move(Path src, Path dest) throws IOException {
+		try {
+			Files.move(src, dest, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex) {
+			Files.move(src, dest);
+		}
+	}
+
+	private static void copy(Path src, Path dest) throws IOException {
+		Files.createDirectories(dest);
+		List<Path> paths;
+		try (Stream<Path> stream = Files.list(src)) {
+			paths = stream.collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			Path target = dest.resolve(path.getFileName().toString());
+			if (path.getFileName().toString().equals(DATA) && Files.isDirectory(path)) {
+				copyOrLinkSSTables(path, target);
+			}
+			else {
+				FileUtils.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	private static void copyOrLinkSSTables(Path src, Path dest) throws IOException {
+		boolean[] link = {true};
+		Files.walkFileTree(src, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes)
+					throws IOException {
+				Files.createDirectories(dest.resolve(src.relativize(directory).toString()));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+				Path target = dest.resolve(src.relativize(file).toString());
+				Files.deleteIfExists(target);
+				//summaries and statistics are rewritten in place, e.g. on an index summary redistribution
+				if (link[0] && isImmutable(file)) {
+					try {
+						Files.createLink(target, file);
+						return FileVisitResult.CONTINUE;
+					}
+					catch (UnsupportedOperationException | IOException ex) {
+						//e.g. the destination is on a different file store
+						link[0] = false;
+					}
+				}
+				Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	private static boolean isImmutable(Path file) {
+		String name = file.getFileName().toString();
+		return name.endsWith("-Data.db") || name.endsWith("-Index.db");
+	}
+
+}
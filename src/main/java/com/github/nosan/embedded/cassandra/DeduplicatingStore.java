@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+final class DeduplicatingStore {
+
+	static final String STORE_DIRECTORY = ".store";
+
+	private static final Logger LOGGER = Logger.get(DeduplicatingStore.class);
+
+	private static final String ALGORITHM = "SHA-256";
+
+	private final Path directory;
+
+	DeduplicatingStore(Path directory) {
+		this.directory = directory;
+	}
+
+	void deduplicate(Path source) throws IOException {
+		List<Path> files;
+		try (Stream<Path> stream = Files.walk(source)) {
+			files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		boolean posix = source.getFileSystem().supportedFileAttributeViews().contains("posix");
+		long linked = 0;
+		for (Path file : files) {
+			String hash = checksum(file);
+			//linked files share permissions, so files with different permissions are stored separately
+			String name = posix ? hash + "-" + PosixFilePermissions.toString(Files.getPosixFilePermissions(file))
+					: hash;
+			Path storeFile = this.directory.resolve(hash.substring(0, 2)).resolve(name);
+			try {
+				if (link(file, storeFile)) {
+					linked++;
+				}
+			}
+			catch (UnsupportedOperationException | IOException ex) {
+				LOGGER.warn("''{0}'' could not be linked into ''{1}'', the remaining files will not be deduplicated."
+						+ " Caused by: {2}", file, this.directory, ex);
+				return;
+			}
+		}
+		LOGGER.info("{0} of {1} files in ''{2}'' were already stored", linked, files.size(), source);
+	}
+
+	void purge() {
+		if (!Files.isDirectory(this.directory)) {
+			return;
+		}
+		try (Stream<Path> stream = Files.walk(this.directory)) {
+			for (Path file : stream.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				//the only remaining link is the store itself, no version uses this file anymore
+				if (((Number) Files.getAttribute(file, "unix:nlink")).intValue() == 1) {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+		catch (UnsupportedOperationException | IllegalArgumentException ex) {
+			//link count is not available
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Store ''{0}'' could not be purged", this.directory);
+		}
+	}
+
+	void remove(String hash) {
+		if (hash == null) {
+			return;
+		}
+		Path directory = this.directory.resolve(hash.substring(0, 2));
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+		try (Stream<Path> stream = Files.list(directory)) {
+			for (Path file : stream.filter(path -> path.getFileName().toString().startsWith(hash))
+					.collect(Collectors.toList())) {
+				Files.deleteIfExists(file);
+			}
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "''{0}'' could not be removed from the store", hash);
+		}
+	}
+
+	private boolean link(Path file, Path storeFile) throws IOException {
+		Files.createDirectories(storeFile.getParent());
+		if (!Files.exists(storeFile)) {
+			//the store becomes a second name of the extracted file, nothing is written twice
+			Path tempFile = storeFile.resolveSibling(storeFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+			Files.createLink(tempFile, file);
+			try {
+				Files.move(tempFile, storeFile, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				Files.deleteIfExists(tempFile);
+			}
+			return false;
+		}
+		Path tempFile = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			Files.createLink(tempFile, storeFile);
+		}
+		catch (NoSuchFileException | FileAlreadyExistsException ex) {
+			//purged or replaced by another process in the meantime, keep the extracted file
+			return false;
+		}
+		try {
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+		return true;
+	}
+
+	private static String checksum(Path file) throws IOException {
+		try {
+			return FileUtils.checksum(file, ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
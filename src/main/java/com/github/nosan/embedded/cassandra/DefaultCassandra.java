@@ -16,6 +16,7 @@
 
 package com.github.nosan.embedded.cassandra;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -25,9 +26,15 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.github.nosan.embedded.cassandra.commons.logging.Logger;
 
@@ -35,13 +42,15 @@ class DefaultCassandra implements Cassandra {
 
 	private static final Logger LOGGER = Logger.get(DefaultCassandra.class);
 
+	private static final long CONNECT_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+
 	private final String name;
 
 	private final Version version;
 
 	private final boolean registerShutdownHook;
 
-	private final Path workingDirectory;
+	private volatile Path workingDirectory;
 
 	private final Set<WorkingDirectoryCustomizer> workingDirectoryCustomizers;
 
@@ -49,6 +58,16 @@ class DefaultCassandra implements Cassandra {
 
 	private final WorkingDirectoryDestroyer workingDirectoryDestroyer;
 
+	private final WorkingDirectoryPool workingDirectoryPool;
+
+	private final String workingDirectoryKey;
+
+	private final EphemeralStorage ephemeralStorage;
+
+	private final ClassDataSharing classDataSharing;
+
+	private final PortAllocator portAllocator;
+
 	private final Duration startupTimeout;
 
 	private final Object lock = new Object();
@@ -67,11 +86,27 @@ class DefaultCassandra implements Cassandra {
 
 	private volatile Settings settings;
 
+	private volatile Closeable distribution;
+
+	private volatile WorkingDirectoryPool.Lease workingDirectoryLease;
+
 	DefaultCassandra(String name, Version version, Path workingDirectory, boolean registerShutdownHook,
 			WorkingDirectoryInitializer workingDirectoryInitializer,
 			WorkingDirectoryDestroyer workingDirectoryDestroyer, Duration startupTimeout,
 			Set<WorkingDirectoryCustomizer> workingDirectoryCustomizers,
 			CassandraDatabaseFactory databaseFactory, Logger logger) {
+		this(name, version, workingDirectory, registerShutdownHook, workingDirectoryInitializer,
+				workingDirectoryDestroyer, startupTimeout, workingDirectoryCustomizers, databaseFactory, logger, null,
+				null, null, null, null);
+	}
+
+	DefaultCassandra(String name, Version version, Path workingDirectory, boolean registerShutdownHook,
+			WorkingDirectoryInitializer workingDirectoryInitializer,
+			WorkingDirectoryDestroyer workingDirectoryDestroyer, Duration startupTimeout,
+			Set<WorkingDirectoryCustomizer> workingDirectoryCustomizers,
+			CassandraDatabaseFactory databaseFactory, Logger logger, WorkingDirectoryPool workingDirectoryPool,
+			String workingDirectoryKey, EphemeralStorage ephemeralStorage, ClassDataSharing classDataSharing,
+			PortAllocator portAllocator) {
 		this.name = name;
 		this.version = version;
 		this.startupTimeout = startupTimeout;
@@ -82,21 +117,16 @@ class DefaultCassandra implements Cassandra {
 		this.databaseFactory = databaseFactory;
 		this.workingDirectoryCustomizers = Collections.unmodifiableSet(workingDirectoryCustomizers);
 		this.logger = logger;
+		this.workingDirectoryPool = workingDirectoryPool;
+		this.workingDirectoryKey = workingDirectoryKey;
+		this.ephemeralStorage = ephemeralStorage;
+		this.classDataSharing = classDataSharing;
+		this.portAllocator = portAllocator;
 	}
 
 	@Override
-	public synchronized void start() throws CassandraException {
-		if (this.started) {
-			return;
-		}
-		this.settings = null;
-		this.running = false;
-		this.database = null;
-		init();
-		doStart();
-		await();
-		//if a database was stopped outside this class.
-		this.database.onExit().thenRun(this::doStop);
+	public void start() throws CassandraException {
+		start(new CompletableFuture<>());
 	}
 
 	@Override
@@ -107,6 +137,29 @@ class DefaultCassandra implements Cassandra {
 		doStop();
 	}
 
+	@Override
+	public CompletableFuture<Settings> startAsync(Executor executor) {
+		Objects.requireNonNull(executor, "Executor must not be null");
+		CompletableFuture<Settings> future = new CompletableFuture<>();
+		executor.execute(() -> {
+			if (future.isCancelled()) {
+				return;
+			}
+			try {
+				//the start is interrupted as soon as the future is cancelled, and stopped on this thread
+				start(future);
+				if (!future.complete(getSettings())) {
+					//cancelled right after start
+					stop();
+				}
+			}
+			catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		});
+		return future;
+	}
+
 	@Override
 	public synchronized Settings getSettings() {
 		Settings settings = this.settings;
@@ -142,14 +195,56 @@ class DefaultCassandra implements Cassandra {
 		return "DefaultCassandra{" + "name='" + this.name + "', version='" + this.version + "'}";
 	}
 
+	private synchronized void start(CompletableFuture<?> cancellation) throws CassandraException {
+		if (this.started) {
+			return;
+		}
+		this.settings = null;
+		this.running = false;
+		this.database = null;
+		init();
+		if (cancellation.isDone()) {
+			destroyWorkingDirectory();
+			throw new CancellationException(String.format("Start of %s has been cancelled", this));
+		}
+		doStart();
+		CompletableFuture<? extends CassandraDatabase> exit = this.database.onExit();
+		await(exit, cancellation);
+		//if a database was stopped outside this class.
+		exit.thenRun(this::doStop);
+	}
+
 	private void init() {
 		Version version = this.version;
 		try {
+			WorkingDirectoryPool.Lease lease = null;
+			if (this.workingDirectoryPool != null) {
+				lease = this.workingDirectoryPool.lease(this.workingDirectoryKey);
+				this.workingDirectoryLease = lease;
+				this.workingDirectory = lease.getDirectory();
+			}
 			Files.createDirectories(this.workingDirectory);
-			this.workingDirectoryInitializer.init(this.workingDirectory, version);
+			boolean directLaunch = this.databaseFactory instanceof DefaultCassandraDatabaseFactory
+					&& ((DefaultCassandraDatabaseFactory) this.databaseFactory).isDirectLaunch();
+			if (lease == null || !lease.isPrepared()) {
+				if (directLaunch && this.workingDirectoryInitializer instanceof DefaultWorkingDirectoryInitializer) {
+					((DefaultWorkingDirectoryInitializer) this.workingDirectoryInitializer)
+							.init(this.workingDirectory, version, true);
+				}
+				else {
+					this.workingDirectoryInitializer.init(this.workingDirectory, version);
+				}
+				if (lease != null) {
+					lease.prepared();
+				}
+			}
+			//customizers are applied every time, e.g. a data snapshot has to be restored after a pool reset
 			for (WorkingDirectoryCustomizer workingDirectoryCustomizer : this.workingDirectoryCustomizers) {
 				workingDirectoryCustomizer.customize(this.workingDirectory, version);
 			}
+			if (directLaunch) {
+				this.distribution = LaunchDescriptor.pin(this.workingDirectory);
+			}
 			this.database = this.databaseFactory.create(this.workingDirectory);
 		}
 		catch (Exception ex) {
@@ -202,7 +297,7 @@ class DefaultCassandra implements Cassandra {
 		}
 	}
 
-	private void await() {
+	private void await(CompletableFuture<?> exit, CompletableFuture<?> cancellation) {
 		CassandraDatabase database = this.database;
 		Duration timeout = this.startupTimeout;
 		database.getStdOut().attach(this.logger::info);
@@ -213,15 +308,16 @@ class DefaultCassandra implements Cassandra {
 				ErrorCollector errorCollector = new ErrorCollector(database);
 				StartupParser startup = new StartupParser(database)) {
 			long start = System.nanoTime();
-			long rem = timeout.toNanos();
-			while (rem > 0 && database.isAlive()
-					&& !(nativeTransport.isParsed() && rpcTransport.isParsed() && startup.isComplete())) {
-				Thread.sleep(Math.min(TimeUnit.NANOSECONDS.toMillis(rem) + 1, 100));
-				rem = timeout.toNanos() - (System.nanoTime() - start);
+			CompletableFuture<Void> ready = CompletableFuture.allOf(nativeTransport.onParsed(),
+					rpcTransport.onParsed(), startup.onComplete());
+			long rem = waitFor(CompletableFuture.anyOf(ready, exit, cancellation), start, timeout);
+			//transports are logged right before they are bound
+			while (rem > 0 && !exit.isDone() && !cancellation.isDone()
+					&& !(connect(nativeTransport) && connect(rpcTransport))) {
+				rem = waitFor(CompletableFuture.anyOf(exit, cancellation), start, timeout, CONNECT_INTERVAL);
 			}
-			while (rem > 0 && database.isAlive() && !(connect(nativeTransport) && connect(rpcTransport))) {
-				Thread.sleep(Math.min(TimeUnit.NANOSECONDS.toMillis(rem) + 1, 100));
-				rem = timeout.toNanos() - (System.nanoTime() - start);
+			if (cancellation.isDone()) {
+				throw new CancellationException(String.format("Start of %s has been cancelled", this));
 			}
 			if (!database.isAlive() || nativeTransport.isFailed() || rpcTransport.isFailed()) {
 				StringBuilder message = new StringBuilder(String.format("'%s' is not alive.", database))
@@ -285,11 +381,67 @@ class DefaultCassandra implements Cassandra {
 
 	private void destroyWorkingDirectory() {
 		try {
-			this.workingDirectoryDestroyer.destroy(this.workingDirectory, this.version);
+			if (this.workingDirectoryPool != null) {
+				WorkingDirectoryPool.Lease lease = this.workingDirectoryLease;
+				if (lease != null) {
+					this.workingDirectoryLease = null;
+					CassandraDatabase database = this.database;
+					try {
+						//a new configuration file is generated on every start
+						if (database != null) {
+							Files.deleteIfExists(database.getConfigurationFile());
+						}
+					}
+					finally {
+						lease.release();
+					}
+				}
+			}
+			else {
+				this.workingDirectoryDestroyer.destroy(this.workingDirectory, this.version);
+			}
 		}
 		catch (Exception ex) {
 			LOGGER.error(ex, "Working directory: ''{0}'' could not be destroyed", this.workingDirectory);
 		}
+		if (this.ephemeralStorage != null) {
+			this.ephemeralStorage.delete();
+		}
+		if (this.classDataSharing != null) {
+			this.classDataSharing.publish();
+		}
+		if (this.portAllocator != null) {
+			this.portAllocator.release();
+		}
+		Closeable distribution = this.distribution;
+		if (distribution != null) {
+			this.distribution = null;
+			try {
+				distribution.close();
+			}
+			catch (IOException ex) {
+				LOGGER.debug(ex, "Cassandra distribution of ''{0}'' could not be released", this.workingDirectory);
+			}
+		}
+	}
+
+	private static long waitFor(CompletableFuture<?> future, long start, Duration timeout, long maxWaitNanos)
+			throws InterruptedException, ExecutionException {
+		long rem = timeout.toNanos() - (System.nanoTime() - start);
+		if (rem > 0) {
+			try {
+				future.get(Math.min(rem, maxWaitNanos), TimeUnit.NANOSECONDS);
+			}
+			catch (TimeoutException ex) {
+				//expected
+			}
+		}
+		return timeout.toNanos() - (System.nanoTime() - start);
+	}
+
+	private static long waitFor(CompletableFuture<?> future, long start, Duration timeout)
+			throws InterruptedException, ExecutionException {
+		return waitFor(future, start, timeout, Long.MAX_VALUE);
 	}
 
 	private static boolean connect(NativeTransportParser nativeTransport) {
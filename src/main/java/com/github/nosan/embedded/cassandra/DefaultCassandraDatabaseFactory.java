@@ -25,6 +25,7 @@ import java.net.MalformedURLException;
 import java.net.ServerSocket;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -33,6 +34,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -63,14 +65,40 @@ class DefaultCassandraDatabaseFactory implements CassandraDatabaseFactory {
 
 	private final Set<String> jvmOptions;
 
+	private final EphemeralStorage ephemeralStorage;
+
+	private final boolean directLaunch;
+
+	private final ClassDataSharing classDataSharing;
+
+	private final PortAllocator portAllocator;
+
 	DefaultCassandraDatabaseFactory(String name, Version version, Map<String, Object> environmentVariables,
 			Map<String, Object> configProperties, Map<String, Object> systemProperties, Set<String> jvmOptions) {
+		this(name, version, environmentVariables, configProperties, systemProperties, jvmOptions, null);
+	}
+
+	DefaultCassandraDatabaseFactory(String name, Version version, Map<String, Object> environmentVariables,
+			Map<String, Object> configProperties, Map<String, Object> systemProperties, Set<String> jvmOptions,
+			EphemeralStorage ephemeralStorage) {
+		this(name, version, environmentVariables, configProperties, systemProperties, jvmOptions, ephemeralStorage,
+				false, null, null);
+	}
+
+	DefaultCassandraDatabaseFactory(String name, Version version, Map<String, Object> environmentVariables,
+			Map<String, Object> configProperties, Map<String, Object> systemProperties, Set<String> jvmOptions,
+			EphemeralStorage ephemeralStorage, boolean directLaunch, ClassDataSharing classDataSharing,
+			PortAllocator portAllocator) {
 		this.name = name;
 		this.version = version;
 		this.environmentVariables = Collections.unmodifiableMap(environmentVariables);
 		this.configProperties = Collections.unmodifiableMap(configProperties);
 		this.systemProperties = Collections.unmodifiableMap(systemProperties);
 		this.jvmOptions = Collections.unmodifiableSet(jvmOptions);
+		this.ephemeralStorage = ephemeralStorage;
+		this.directLaunch = directLaunch;
+		this.classDataSharing = classDataSharing;
+		this.portAllocator = portAllocator;
 	}
 
 	@Override
@@ -85,6 +113,10 @@ class DefaultCassandraDatabaseFactory implements CassandraDatabaseFactory {
 		Map<String, Object> configProperties = loadProperties(configFile);
 		setProperties(null, this.configProperties, configProperties);
 		configureConfigProperties(configProperties);
+		Files.deleteIfExists(workingDirectory.resolve(EphemeralStorage.MARKER_FILE));
+		if (this.ephemeralStorage != null) {
+			configureEphemeralStorage(workingDirectory, configProperties);
+		}
 		//Since Cassandra 4.X.X has a format IP:PORT, 0 port must be replaced with the storage_port.
 		if (version.getMajor() >= 4) {
 			configureSeeds(configProperties, systemProperties);
@@ -93,7 +125,21 @@ class DefaultCassandraDatabaseFactory implements CassandraDatabaseFactory {
 				"-" + configFile.getFileName().orElse("cassandra.yaml"));
 		writeProperties(configProperties, newConfigFile);
 		systemProperties.put("cassandra.config", newConfigFile.toUri().toString());
-		List<String> jvmExtraOpts = new ArrayList<>(this.jvmOptions);
+		boolean directLaunch = isDirectLaunch();
+		Map<String, String> environmentVariables = new LinkedHashMap<>();
+		for (Map.Entry<String, Object> entry : this.environmentVariables.entrySet()) {
+			environmentVariables.put(entry.getKey(), Objects.toString(entry.getValue(), ""));
+		}
+		if (!environmentVariables.containsKey("JAVA_HOME")) {
+			Optional.ofNullable(System.getProperty("java.home"))
+					.filter(StringUtils::hasText).ifPresent(path -> environmentVariables.put("JAVA_HOME", path));
+		}
+		Set<String> jvmOptions = new LinkedHashSet<>(this.jvmOptions);
+		if (this.classDataSharing != null && directLaunch && environmentVariables.containsKey("JAVA_HOME")) {
+			jvmOptions.addAll(this.classDataSharing.getJvmOptions(workingDirectory,
+					Paths.get(environmentVariables.get("JAVA_HOME"))));
+		}
+		List<String> jvmExtraOpts = new ArrayList<>(jvmOptions);
 		systemProperties.forEach((name, value) -> {
 			if (value.equals("")) {
 				jvmExtraOpts.add("-D" + name);
@@ -102,24 +148,28 @@ class DefaultCassandraDatabaseFactory implements CassandraDatabaseFactory {
 				jvmExtraOpts.add("-D" + name + "=" + value);
 			}
 		});
-		Map<String, String> environmentVariables = new LinkedHashMap<>();
-		for (Map.Entry<String, Object> entry : this.environmentVariables.entrySet()) {
-			environmentVariables.put(entry.getKey(), Objects.toString(entry.getValue(), ""));
-		}
-		environmentVariables.merge("JVM_EXTRA_OPTS", String.join(" ", jvmExtraOpts), (s1, s2) -> s1 + " " + s2);
-		if (!environmentVariables.containsKey("JAVA_HOME")) {
-			Optional.ofNullable(System.getProperty("java.home"))
-					.filter(StringUtils::hasText).ifPresent(path -> environmentVariables.put("JAVA_HOME", path));
+		if (!directLaunch) {
+			environmentVariables.merge("JVM_EXTRA_OPTS", String.join(" ", jvmExtraOpts), (s1, s2) -> s1 + " " + s2);
 		}
 		Files.createDirectories(workingDirectory.resolve("logs"));
 		Files.createDirectories(workingDirectory.resolve("data"));
 		if (isWindows()) {
 			Path pidFile = Files.createTempFile(workingDirectory.resolve("bin"), "", "-cassandra.pid");
 			return new WindowsCassandraDatabase(this.name, version, newConfigFile, workingDirectory,
-					environmentVariables, configProperties, systemProperties, this.jvmOptions, pidFile);
+					environmentVariables, configProperties, systemProperties, jvmOptions, pidFile);
+		}
+		if (directLaunch) {
+			return new DirectCassandraDatabase(this.name, version, newConfigFile, workingDirectory,
+					environmentVariables, configProperties, systemProperties, jvmOptions);
 		}
 		return new UnixCassandraDatabase(this.name, version, newConfigFile, workingDirectory, environmentVariables,
-				configProperties, systemProperties, this.jvmOptions);
+				configProperties, systemProperties, jvmOptions);
+	}
+
+	boolean isDirectLaunch() {
+		//bin/cassandra is not used for versions which do not have jvm.options, it puts conf ahead of the jars,
+		//thus class data sharing requires a direct launch
+		return (this.directLaunch || this.classDataSharing != null) && this.version.getMajor() >= 3 && !isWindows();
 	}
 
 	private static boolean isWindows() {
@@ -168,7 +218,37 @@ class DefaultCassandraDatabaseFactory implements CassandraDatabaseFactory {
 		return new FileSystemResource(workingDirectory.resolve("conf/cassandra.yaml"));
 	}
 
-	private static void configureSystemProperties(Map<String, String> systemProperties) throws IOException {
+	private void configureEphemeralStorage(Path workingDirectory, Map<String, Object> configProperties)
+			throws IOException {
+		Path directory = this.ephemeralStorage.create();
+		if (directory == null) {
+			return;
+		}
+		Version version = this.version;
+		Map<String, Object> properties = new LinkedHashMap<>();
+		properties.put("data_file_directories", Collections.singletonList(directory.resolve("data").toString()));
+		properties.put("commitlog_directory", directory.resolve("commitlog").toString());
+		properties.put("saved_caches_directory", directory.resolve("saved_caches").toString());
+		if (version.getMajor() >= 3) {
+			properties.put("hints_directory", directory.resolve("hints").toString());
+		}
+		if (version.getMajor() > 3 || (version.getMajor() == 3 && version.getMinor() >= 8)) {
+			properties.put("cdc_raw_directory", directory.resolve("cdc_raw").toString());
+		}
+		//explicitly configured directories are kept
+		properties.forEach((name, value) -> {
+			if (!this.configProperties.containsKey(name)) {
+				configProperties.put(name, value);
+			}
+		});
+		if (!this.configProperties.containsKey("data_file_directories")) {
+			//the data is deleted together with the ephemeral storage, e.g. it cannot be captured by a DataSnapshot
+			Files.write(workingDirectory.resolve(EphemeralStorage.MARKER_FILE),
+					Collections.singleton(directory.resolve("data").toString()), StandardCharsets.UTF_8);
+		}
+	}
+
+	private void configureSystemProperties(Map<String, String> systemProperties) throws IOException {
 		setPort("cassandra.native_transport_port", systemProperties);
 		setPort("cassandra.storage_port", systemProperties);
 		setPort("cassandra.ssl_storage_port", systemProperties);
@@ -178,7 +258,7 @@ class DefaultCassandraDatabaseFactory implements CassandraDatabaseFactory {
 		setPort("com.sun.management.jmxremote.rmi.port", systemProperties);
 	}
 
-	private static void configureConfigProperties(Map<String, Object> configProperties) throws IOException {
+	private void configureConfigProperties(Map<String, Object> configProperties) throws IOException {
 		setPort("native_transport_port", configProperties);
 		setPort("storage_port", configProperties);
 		setPort("ssl_storage_port", configProperties);
@@ -186,8 +266,12 @@ class DefaultCassandraDatabaseFactory implements CassandraDatabaseFactory {
 		setPort("native_transport_port_ssl", configProperties);
 	}
 
-	private static void setPort(String name, Map<String, ? super String> target) throws IOException {
+	private void setPort(String name, Map<String, ? super String> target) throws IOException {
 		if (Objects.toString(target.get(name), "").equals("0")) {
+			if (this.portAllocator != null) {
+				target.put(name, Integer.toString(this.portAllocator.allocate()));
+				return;
+			}
 			try (ServerSocket ss = new ServerSocket(0)) {
 				target.put(name, Integer.toString(ss.getLocalPort()));
 			}
@@ -16,6 +16,7 @@
 
 package com.github.nosan.embedded.cassandra;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -23,8 +24,11 @@ import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.github.nosan.embedded.cassandra.commons.FileUtils;
 
@@ -42,10 +46,19 @@ public class DefaultWorkingDirectoryInitializer implements WorkingDirectoryIniti
 	private static final Set<String> SKIP_DIRECTORIES = Collections.unmodifiableSet(
 			new LinkedHashSet<>(Arrays.asList("javadoc", "doc", "licenses")));
 
+	private static final String SYNC_MANIFEST_FILE = ".embedded-cassandra.manifest";
+
+	private static final Set<String> LINK_DIRECTORIES = Collections.unmodifiableSet(
+			new LinkedHashSet<>(Arrays.asList("bin", "lib", "pylib", "tools")));
+
+	private static final int MAX_ATTEMPTS = 3;
+
 	private final CassandraDirectoryProvider cassandraDirectoryProvider;
 
 	private final CopyStrategy copyStrategy;
 
+	private final int parallelism;
+
 	/**
 	 * Creates a new {@link DefaultWorkingDirectoryInitializer} with a {@link CopyStrategy#REPLACE_EXISTING} copy
 	 * strategy.
@@ -66,19 +79,59 @@ public class DefaultWorkingDirectoryInitializer implements WorkingDirectoryIniti
 	 */
 	public DefaultWorkingDirectoryInitializer(CassandraDirectoryProvider cassandraDirectoryProvider,
 			CopyStrategy copyStrategy) {
+		this(cassandraDirectoryProvider, copyStrategy, 1);
+	}
+
+	/**
+	 * Creates a new {@link DefaultWorkingDirectoryInitializer}.
+	 *
+	 * @param cassandraDirectoryProvider the Cassandra directory provider. This provider is used to get a path to
+	 * Cassandra directory.
+	 * @param copyStrategy Cassandra files copy strategy.
+	 * @param parallelism the number of threads used to copy files, {@code 1} copies files in the calling thread.
+	 * @since 4.0.7
+	 */
+	public DefaultWorkingDirectoryInitializer(CassandraDirectoryProvider cassandraDirectoryProvider,
+			CopyStrategy copyStrategy, int parallelism) {
 		Objects.requireNonNull(cassandraDirectoryProvider, "Cassandra Directory Provider must not be null");
 		Objects.requireNonNull(copyStrategy, "Copy Option must not be null");
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be greater than 0");
+		}
 		this.cassandraDirectoryProvider = cassandraDirectoryProvider;
 		this.copyStrategy = copyStrategy;
+		this.parallelism = parallelism;
 	}
 
 	@Override
 	public final void init(Path workingDirectory, Version version) throws IOException {
+		init(workingDirectory, version, false);
+	}
+
+	final void init(Path workingDirectory, Version version, boolean link) throws IOException {
 		Objects.requireNonNull(workingDirectory, "Working Directory must not be null");
 		Objects.requireNonNull(version, "Version must not be null");
-		Path cassandraDirectory = this.cassandraDirectoryProvider.getDirectory(version);
-		Objects.requireNonNull(cassandraDirectory, "Cassandra Directory must not be null");
-		copy(cassandraDirectory, workingDirectory, this.copyStrategy);
+		for (int attempt = 1; ; attempt++) {
+			Path cassandraDirectory = this.cassandraDirectoryProvider.getDirectory(version);
+			Objects.requireNonNull(cassandraDirectory, "Cassandra Directory must not be null");
+			//a cached directory must not be evicted while it is copied or linked
+			Closeable pin = DistributionCache.pin(cassandraDirectory);
+			if (pin == null) {
+				if (attempt == MAX_ATTEMPTS) {
+					throw new IOException(
+							String.format("Cassandra directory '%s' has been evicted", cassandraDirectory));
+				}
+				continue;
+			}
+			try (Closeable ignore = pin) {
+				copy(cassandraDirectory, workingDirectory, this.copyStrategy);
+				//launch settings of a direct launch are resolved once per Cassandra directory
+				if (link) {
+					LaunchDescriptor.link(cassandraDirectory, workingDirectory);
+				}
+			}
+			return;
+		}
 	}
 
 	/**
@@ -89,8 +142,14 @@ public class DefaultWorkingDirectoryInitializer implements WorkingDirectoryIniti
 	 * @throws IOException an I/O error occurs
 	 */
 	protected void copy(Path cassandraDirectory, Path workingDirectory, CopyStrategy copyStrategy) throws IOException {
-		if (copyStrategy == CopyStrategy.REPLACE_EXISTING) {
-			FileUtils.copy(cassandraDirectory, workingDirectory, (path, attributes) -> {
+		if (copyStrategy == CopyStrategy.SYNC) {
+			sync(cassandraDirectory, workingDirectory);
+		}
+		else if (copyStrategy == CopyStrategy.HARD_LINK) {
+			copyOrLink(cassandraDirectory, workingDirectory);
+		}
+		else if (copyStrategy == CopyStrategy.REPLACE_EXISTING) {
+			FileUtils.copy(cassandraDirectory, workingDirectory, this.parallelism, (path, attributes) -> {
 				if (attributes.isDirectory()) {
 					return !SKIP_DIRECTORIES.contains(path.getFileName().toString());
 				}
@@ -98,7 +157,7 @@ public class DefaultWorkingDirectoryInitializer implements WorkingDirectoryIniti
 			}, StandardCopyOption.REPLACE_EXISTING);
 		}
 		else {
-			FileUtils.copy(cassandraDirectory, workingDirectory, (path, attributes) -> {
+			FileUtils.copy(cassandraDirectory, workingDirectory, this.parallelism, (path, attributes) -> {
 				if (attributes.isDirectory()) {
 					return !SKIP_DIRECTORIES.contains(path.getFileName().toString());
 				}
@@ -107,6 +166,64 @@ public class DefaultWorkingDirectoryInitializer implements WorkingDirectoryIniti
 		}
 	}
 
+	private static void sync(Path cassandraDirectory, Path workingDirectory) throws IOException {
+		//directories only, files are copied when they differ from the manifest
+		FileUtils.copy(cassandraDirectory, workingDirectory, (path, attributes) -> attributes.isDirectory()
+				&& !SKIP_DIRECTORIES.contains(path.getFileName().toString()));
+		Path manifestFile = workingDirectory.resolve(SYNC_MANIFEST_FILE);
+		DirectoryManifest previous;
+		try {
+			previous = DirectoryManifest.load(manifestFile);
+		}
+		catch (IOException ex) {
+			previous = null;
+		}
+		DirectoryManifest current = DirectoryManifest.create(cassandraDirectory,
+				path -> !SKIP_DIRECTORIES.contains(path.getFileName().toString()), previous);
+		for (String path : current.getPaths()) {
+			Path target = workingDirectory.resolve(path);
+			//copies keep the last modified time of their source, so a file edited in place is copied again
+			if (previous == null || !Objects.equals(previous.getHash(path), current.getHash(path))
+					|| !Files.isRegularFile(target) || Files.size(target) != current.getSize(path)
+					|| Files.getLastModifiedTime(target).toMillis() != current.getLastModifiedTime(path)) {
+				Files.createDirectories(target.getParent());
+				Files.copy(cassandraDirectory.resolve(path), target, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.COPY_ATTRIBUTES);
+			}
+		}
+		if (previous != null) {
+			for (String path : previous.getPaths()) {
+				if (!current.getPaths().contains(path)) {
+					Files.deleteIfExists(workingDirectory.resolve(path));
+				}
+			}
+		}
+		current.save(manifestFile);
+	}
+
+	private void copyOrLink(Path cassandraDirectory, Path workingDirectory) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> stream = Files.list(cassandraDirectory)) {
+			paths = stream.collect(Collectors.toList());
+		}
+		Files.createDirectories(workingDirectory);
+		for (Path path : paths) {
+			String name = path.getFileName().toString();
+			if (Files.isDirectory(path) && SKIP_DIRECTORIES.contains(name)) {
+				continue;
+			}
+			Path target = workingDirectory.resolve(name);
+			if (Files.isDirectory(path) && LINK_DIRECTORIES.contains(name)) {
+				if (!HardLinks.link(path, target)) {
+					FileUtils.copy(path, target, this.parallelism, null, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			else {
+				FileUtils.copy(path, target, this.parallelism, null, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
 	/**
 	 * Casandra files copy strategies.
 	 */
@@ -118,7 +235,27 @@ public class DefaultWorkingDirectoryInitializer implements WorkingDirectoryIniti
 		/**
 		 * Skip to copy if destination file exists.
 		 */
-		SKIP_EXISTING
+		SKIP_EXISTING,
+		/**
+		 * Create hard links to files of <b>bin, lib, pylib and tools</b> directories instead of copying them, and copy
+		 * all other files (e.g. <b>conf</b>). Replace a destination file if it exists.
+		 * <p>Linked files share their content with the Cassandra directory, so they must not be modified in place.
+		 * Files are copied if links cannot be created, e.g. the working directory is on a different file store.
+		 *
+		 * @since 4.0.7
+		 */
+		HARD_LINK,
+		/**
+		 * Copy only files that were added or changed since the last initialization, and delete files that were
+		 * removed from the Cassandra directory. Other files in the working directory (e.g. data and logs) are kept.
+		 * <p>Files are compared with a manifest (size, last modified time and hash of each file) stored in the working
+		 * directory, and only files whose size or last modified time changed are hashed again. Copied files keep the
+		 * last modified time of their source, so files modified in the working directory are copied again. Useful
+		 * with a persistent working directory.
+		 *
+		 * @since 4.0.7
+		 */
+		SYNC
 	}
 
 }
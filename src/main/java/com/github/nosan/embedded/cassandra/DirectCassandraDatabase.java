@@ -0,0 +1,315 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.StringUtils;
+
+class DirectCassandraDatabase extends UnixCassandraDatabase {
+
+	static final String MAIN_CLASS = "org.apache.cassandra.service.CassandraDaemon";
+
+	private static final String DEFAULT_JMX_PORT = "7199";
+
+	private static final Pattern ASSIGNMENT = Pattern.compile(
+			"^([A-Za-z_][A-Za-z0-9_]*)=(?:\"([^\"$`]*)\"|([^\\s\"'$`;#]*))\\s*(?:#.*)?$");
+
+	DirectCassandraDatabase(String name, Version version, Path configurationFile, Path workingDirectory,
+			Map<String, String> environmentVariables, Map<String, Object> configProperties,
+			Map<String, String> systemProperties, Set<String> jvmOptions) {
+		super(name, version, configurationFile, workingDirectory, environmentVariables, configProperties,
+				systemProperties, jvmOptions);
+	}
+
+	@Override
+	protected Process doStart() throws IOException {
+		ProcessBuilder processBuilder = new ProcessBuilder();
+		processBuilder.directory(getWorkingDirectory().toFile());
+		processBuilder.environment().putAll(getEnvironmentVariables());
+		//cassandra-env.sh exports it unless it is set
+		processBuilder.environment().putIfAbsent("MALLOC_ARENA_MAX", "4");
+		return start(getName() + ":java", processBuilder.command(getCommand()));
+	}
+
+	List<String> getCommand() throws IOException {
+		Path workingDirectory = getWorkingDirectory();
+		Map<String, String> environmentVariables = getEnvironmentVariables();
+		Path javaHome = Paths.get(environmentVariables.getOrDefault("JAVA_HOME", System.getProperty("java.home")));
+		Path java = javaHome.resolve("bin/java");
+		if (!Files.exists(java)) {
+			throw new FileNotFoundException(String.format("%s does not exist", java));
+		}
+		LaunchDescriptor descriptor = LaunchDescriptor.get(workingDirectory);
+		//the jars of a linked distribution are shared by its working directories, so that a class data sharing
+		//archive created in one of them is accepted in the others
+		Path cassandraDirectory = LaunchDescriptor.getDistribution(workingDirectory);
+		Path jarDirectory = (cassandraDirectory != null) ? cassandraDirectory : workingDirectory;
+		int javaVersion = descriptor.getJavaVersion(javaHome);
+		Map<String, String> variables = new LinkedHashMap<>(environmentVariables);
+		variables.putAll(getVariables(workingDirectory.resolve("conf/cassandra-env.sh")));
+		Path logDirectory = workingDirectory.resolve("logs");
+		if (getVersion().getMajor() >= 4 && StringUtils.hasText(variables.get("CASSANDRA_LOG_DIR"))) {
+			logDirectory = Paths.get(variables.get("CASSANDRA_LOG_DIR"));
+		}
+		//the same order as bin/cassandra and cassandra-env.sh: JVM_OPTS, options files, GC log, heap, ...
+		List<String> jvmOptions = new ArrayList<>(split(variables.get("JVM_OPTS")));
+		jvmOptions.addAll(getFileOptions(descriptor, javaVersion));
+		jvmOptions.addAll(getGcLogOptions(jvmOptions, javaVersion, logDirectory));
+		jvmOptions.addAll(getHeapOptions(jvmOptions, variables));
+		Path compilerFile = workingDirectory.resolve("conf/hotspot_compiler");
+		if (Files.exists(compilerFile)) {
+			jvmOptions.add("-XX:CompileCommandFile=" + compilerFile);
+		}
+		for (String agent : descriptor.getAgents()) {
+			jvmOptions.add("-javaagent:" + jarDirectory.resolve(agent));
+		}
+		if (StringUtils.hasText(variables.get("CASSANDRA_HEAPDUMP_DIR"))) {
+			//a directory, the JVM names a heap dump by its pid, which is unknown before it is started
+			jvmOptions.add("-XX:HeapDumpPath=" + variables.get("CASSANDRA_HEAPDUMP_DIR"));
+		}
+		jvmOptions.addAll(getJmxOptions(variables));
+		Path sigar = workingDirectory.resolve("lib/sigar-bin");
+		if (Files.isDirectory(sigar)) {
+			jvmOptions.add("-Djava.library.path=" + sigar);
+		}
+		addOption(jvmOptions, variables.get("MX4J_ADDRESS"), "-Dmx4jaddress");
+		addOption(jvmOptions, variables.get("MX4J_PORT"), "-Dmx4jport");
+		jvmOptions.addAll(split(variables.get("JVM_EXTRA_OPTS")));
+		jvmOptions.addAll(getJvmOptions());
+		getSystemProperties().forEach((name, value) -> {
+			if (value.equals("")) {
+				jvmOptions.add("-D" + name);
+			}
+			else {
+				jvmOptions.add("-D" + name + "=" + value);
+			}
+		});
+		jvmOptions.add("-XX:OnOutOfMemoryError=kill -9 %p");
+		jvmOptions.add("-Dlogback.configurationFile=logback.xml");
+		jvmOptions.add("-Dcassandra.logdir=" + logDirectory);
+		jvmOptions.add("-Dcassandra.storagedir=" + workingDirectory.resolve("data"));
+		jvmOptions.add("-Dcassandra-foreground=yes");
+		List<String> command = new ArrayList<>();
+		command.add(java.toString());
+		command.addAll(jvmOptions);
+		command.add("-cp");
+		List<String> classpath = new ArrayList<>();
+		for (String jar : descriptor.getClasspath()) {
+			classpath.add(jarDirectory.resolve(jar).toString());
+		}
+		//conf goes last, class data sharing does not allow a non-empty directory before the jars classes are
+		//loaded from, conf has no classes, only resources which are not in the jars
+		classpath.add(workingDirectory.resolve("conf").toString());
+		command.add(String.join(File.pathSeparator, classpath));
+		command.add(MAIN_CLASS);
+		return command;
+	}
+
+	private List<String> getFileOptions(LaunchDescriptor descriptor, int javaVersion) {
+		List<String> names = new ArrayList<>();
+		if (getVersion().getMajor() >= 4) {
+			names.add("jvm-server.options");
+			for (int version = javaVersion; version >= 8; version--) {
+				String name = "jvm" + version + "-server.options";
+				if (descriptor.getOptions(name) != null) {
+					names.add(name);
+					break;
+				}
+			}
+		}
+		else {
+			names.add("jvm.options");
+		}
+		List<String> options = new ArrayList<>();
+		for (String name : names) {
+			List<String> lines = descriptor.getOptions(name);
+			if (lines != null) {
+				options.addAll(lines);
+			}
+		}
+		return options;
+	}
+
+	private static List<String> getGcLogOptions(List<String> jvmOptions, int javaVersion, Path logDirectory)
+			throws IOException {
+		String prefix = (javaVersion >= 11) ? "-Xlog:gc" : "-Xloggc";
+		if (jvmOptions.stream().anyMatch(option -> option.startsWith(prefix))) {
+			return Collections.emptyList();
+		}
+		Files.createDirectories(logDirectory);
+		Path gcLog = logDirectory.resolve("gc.log");
+		if (javaVersion >= 11) {
+			return Collections.singletonList("-Xlog:gc=info,heap*=trace,age*=debug,safepoint=info,promotion*=trace"
+					+ ":file=" + gcLog + ":time,uptime,pid,tid,level:filecount=10,filesize=10485760");
+		}
+		return Collections.singletonList("-Xloggc:" + gcLog);
+	}
+
+	private static List<String> getHeapOptions(List<String> jvmOptions, Map<String, String> variables)
+			throws IOException {
+		boolean definedXmx = jvmOptions.stream().anyMatch(option -> option.startsWith("-Xmx"));
+		boolean definedXms = jvmOptions.stream().anyMatch(option -> option.startsWith("-Xms"));
+		boolean definedXmn = jvmOptions.stream().anyMatch(option -> option.startsWith("-Xmn"));
+		boolean usingCms = jvmOptions.contains("-XX:+UseConcMarkSweepGC");
+		boolean usingG1 = jvmOptions.contains("-XX:+UseG1GC");
+		String maxHeapSize = variables.get("MAX_HEAP_SIZE");
+		String heapNewSize = variables.get("HEAP_NEWSIZE");
+		if (!StringUtils.hasText(maxHeapSize) && (!StringUtils.hasText(heapNewSize) || usingG1)) {
+			maxHeapSize = HeapSize.MAX_HEAP_SIZE + "M";
+			heapNewSize = HeapSize.HEAP_NEWSIZE + "M";
+		}
+		else if (!StringUtils.hasText(maxHeapSize) || (!StringUtils.hasText(heapNewSize) && !usingG1)) {
+			throw new IOException("MAX_HEAP_SIZE and HEAP_NEWSIZE must be set or unset in pairs"
+					+ " when using CMS GC (see cassandra-env.sh)");
+		}
+		List<String> options = new ArrayList<>();
+		if (!definedXmx && !definedXms) {
+			options.add("-Xms" + maxHeapSize);
+			options.add("-Xmx" + maxHeapSize);
+		}
+		else if (!definedXmx || !definedXms) {
+			throw new IOException("-Xmx and -Xms must be set or unset in pairs in the JVM options files");
+		}
+		if (definedXmn && !definedXmx) {
+			throw new IOException("-Xmx and -Xmn must be set or unset in pairs in the JVM options files");
+		}
+		if (definedXmn && usingG1) {
+			throw new IOException("-Xmn must not be set with the G1 garbage collector");
+		}
+		if (!definedXmn && usingCms) {
+			options.add("-Xmn" + heapNewSize);
+		}
+		//cassandra-env.sh checks the data model of the JVM, it is the same as this one in practice
+		if (usingCms && System.getProperty("os.arch", "").contains("64")) {
+			options.add("-XX:+UseCondCardMark");
+		}
+		return options;
+	}
+
+	private static List<String> getJmxOptions(Map<String, String> variables) {
+		List<String> options = new ArrayList<>();
+		String jmxPort = variables.getOrDefault("JMX_PORT", DEFAULT_JMX_PORT);
+		String localJmx = variables.get("LOCAL_JMX");
+		if (!StringUtils.hasText(localJmx) || localJmx.equals("yes")) {
+			options.add("-Dcassandra.jmx.local.port=" + jmxPort);
+			options.add("-Dcom.sun.management.jmxremote.authenticate=false");
+		}
+		else {
+			options.add("-Dcassandra.jmx.remote.port=" + jmxPort);
+			options.add("-Dcom.sun.management.jmxremote.rmi.port=" + jmxPort);
+			options.add("-Dcom.sun.management.jmxremote.authenticate=true");
+		}
+		options.add("-Dcom.sun.management.jmxremote.password.file=/etc/cassandra/jmxremote.password");
+		return options;
+	}
+
+	private static void addOption(List<String> jvmOptions, String value, String name) {
+		if (StringUtils.hasText(value)) {
+			jvmOptions.add(value.startsWith(name) ? value : name + "=" + value);
+		}
+	}
+
+	//only unconditional assignments of plain values, e.g. JMX_PORT="7199", the script itself is not evaluated
+	private static Map<String, String> getVariables(Path file) throws IOException {
+		Map<String, String> variables = new LinkedHashMap<>();
+		if (!Files.isRegularFile(file)) {
+			return variables;
+		}
+		for (String line : Files.readAllLines(file, StandardCharsets.ISO_8859_1)) {
+			Matcher matcher = ASSIGNMENT.matcher(line);
+			if (matcher.matches()) {
+				variables.put(matcher.group(1), (matcher.group(2) != null) ? matcher.group(2) : matcher.group(3));
+			}
+		}
+		return variables;
+	}
+
+	private static List<String> split(String value) {
+		if (!StringUtils.hasText(value)) {
+			return new ArrayList<>();
+		}
+		return Arrays.asList(value.trim().split("\\s+"));
+	}
+
+	static final class HeapSize {
+
+		static final long TOTAL_MEMORY;
+
+		//the same defaults as calculate_heap_sizes in cassandra-env.sh
+		static final long MAX_HEAP_SIZE;
+
+		static final long HEAP_NEWSIZE;
+
+		static {
+			long memory = getSystemMemory();
+			long cores = Math.max(1, getSystemCores());
+			TOTAL_MEMORY = memory;
+			MAX_HEAP_SIZE = Math.max(Math.min(memory / 2, 1024), Math.min(memory / 4, 8192));
+			HEAP_NEWSIZE = Math.min(cores * 100, MAX_HEAP_SIZE / 4);
+		}
+
+		private static long getSystemMemory() {
+			//'free -m' on Linux, it does not take container limits into account
+			try (Stream<String> lines = Files.lines(Paths.get("/proc/meminfo"))) {
+				Optional<String> memTotal = lines.filter(line -> line.startsWith("MemTotal:")).findFirst();
+				if (memTotal.isPresent()) {
+					return Long.parseLong(memTotal.get().replaceAll("\\D", "")) / 1024;
+				}
+			}
+			catch (IOException | UncheckedIOException | NumberFormatException ex) {
+				//not Linux
+			}
+			//the same default as cassandra-env.sh uses for an unknown system
+			return 2048;
+		}
+
+		private static long getSystemCores() {
+			//'/proc/cpuinfo' on Linux, it does not take container limits into account
+			try (Stream<String> lines = Files.lines(Paths.get("/proc/cpuinfo"))) {
+				long cores = lines.filter(line -> line.matches("^processor\\s*:.*")).count();
+				if (cores > 0) {
+					return cores;
+				}
+			}
+			catch (IOException | UncheckedIOException ex) {
+				//not Linux
+			}
+			return Runtime.getRuntime().availableProcessors();
+		}
+
+	}
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+
+final class DirectoryManifest {
+
+	static final String MANIFEST_FILE = ".manifest";
+
+	private static final String ALGORITHM = "SHA-256";
+
+	private final Map<String, Entry> entries;
+
+	private boolean refreshed;
+
+	private DirectoryManifest(Map<String, Entry> entries) {
+		this.entries = entries;
+	}
+
+	static DirectoryManifest create(Path directory) throws IOException {
+		List<Path> files;
+		try (Stream<Path> stream = Files.walk(directory)) {
+			files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		Map<String, Entry> entries = new TreeMap<>();
+		for (Entry entry : createEntries(directory, files)) {
+			entries.put(entry.path, entry);
+		}
+		return new DirectoryManifest(entries);
+	}
+
+	static DirectoryManifest create(Path directory, Predicate<? super Path> directoryFilter,
+			DirectoryManifest previous) throws IOException {
+		Map<String, Entry> entries = new TreeMap<>();
+		List<Path> changed = new ArrayList<>();
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				return (dir.equals(directory) || directoryFilter.test(dir)) ? FileVisitResult.CONTINUE
+						: FileVisitResult.SKIP_SUBTREE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				String path = directory.relativize(file).toString().replace('\\', '/');
+				Entry entry = (previous != null) ? previous.entries.get(path) : null;
+				//only files whose metadata changed are hashed again
+				if (entry != null && entry.size == attrs.size()
+						&& entry.lastModifiedTime == attrs.lastModifiedTime().toMillis()) {
+					entries.put(path, entry);
+				}
+				else {
+					changed.add(file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+		for (Entry entry : createEntries(directory, changed)) {
+			entries.put(entry.path, entry);
+		}
+		return new DirectoryManifest(entries);
+	}
+
+	static DirectoryManifest create(Path directory, Collection<Path> files, DirectoryManifest previous,
+			long trustedBefore) throws IOException {
+		Map<String, Entry> entries = new TreeMap<>();
+		List<Path> changed = new ArrayList<>();
+		for (Path file : files) {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			String path = directory.relativize(file).toString().replace('\\', '/');
+			Entry entry = (previous != null) ? previous.entries.get(path) : null;
+			long lastModifiedTime = attributes.lastModifiedTime().toMillis();
+			//metadata cannot tell a change made within the timestamp granularity after the file was hashed
+			if (entry != null && entry.size == attributes.size() && entry.lastModifiedTime == lastModifiedTime
+					&& lastModifiedTime < trustedBefore) {
+				entries.put(path, entry);
+			}
+			else {
+				changed.add(file);
+			}
+		}
+		for (Entry entry : createEntries(directory, changed)) {
+			entries.put(entry.path, entry);
+		}
+		return new DirectoryManifest(entries);
+	}
+
+	static DirectoryManifest load(Path file) throws IOException {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		Map<String, Entry> entries = new TreeMap<>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] tokens = line.split(" ", 4);
+				if (tokens.length != 4) {
+					throw new IOException(String.format("Manifest '%s' is malformed: '%s'", file, line));
+				}
+				Entry entry = new Entry(tokens[3], Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), tokens[0]);
+				entries.put(entry.path, entry);
+			}
+		}
+		catch (NumberFormatException ex) {
+			throw new IOException(String.format("Manifest '%s' is malformed", file), ex);
+		}
+		return new DirectoryManifest(entries);
+	}
+
+	void save(Path file) throws IOException {
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+			for (Entry entry : this.entries.values()) {
+				writer.write(entry.hash + " " + entry.size + " " + entry.lastModifiedTime + " " + entry.path);
+				writer.newLine();
+			}
+		}
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	String getHash(String path) {
+		Entry entry = this.entries.get(path);
+		return (entry != null) ? entry.hash : null;
+	}
+
+	Set<String> getPaths() {
+		return Collections.unmodifiableSet(this.entries.keySet());
+	}
+
+	long getSize(String path) {
+		Entry entry = this.entries.get(path);
+		return (entry != null) ? entry.size : -1;
+	}
+
+	long getLastModifiedTime(String path) {
+		Entry entry = this.entries.get(path);
+		return (entry != null) ? entry.lastModifiedTime : -1;
+	}
+
+	long getSize() {
+		return this.entries.values().stream().mapToLong(entry -> entry.size).sum();
+	}
+
+	DirectoryManifest copy(Path directory, Collection<Path> files) throws IOException {
+		//the files have just been copied from the directory of this manifest, thus only their metadata differs
+		Map<String, Entry> entries = new TreeMap<>();
+		List<Path> changed = new ArrayList<>();
+		for (Path file : files) {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			String path = directory.relativize(file).toString().replace('\\', '/');
+			Entry entry = this.entries.get(path);
+			if (entry != null && entry.size == attributes.size()) {
+				entries.put(path, new Entry(path, attributes.size(), attributes.lastModifiedTime().toMillis(),
+						entry.hash));
+			}
+			else {
+				changed.add(file);
+			}
+		}
+		for (Entry entry : createEntries(directory, changed)) {
+			entries.put(entry.path, entry);
+		}
+		return new DirectoryManifest(entries);
+	}
+
+	boolean hasSameContent(DirectoryManifest manifest) {
+		for (Entry entry : this.entries.values()) {
+			if (!entry.hash.equals(manifest.getHash(entry.path))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	boolean isModifiedBefore(long time) {
+		return this.entries.values().stream().allMatch(entry -> entry.lastModifiedTime < time);
+	}
+
+	Set<String> validate(Path directory) throws IOException {
+		Set<String> damaged = new TreeSet<>();
+		List<Entry> changed = new ArrayList<>();
+		for (Entry entry : this.entries.values()) {
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(directory.resolve(entry.path),
+						BasicFileAttributes.class);
+				if (!attributes.isRegularFile() || attributes.size() != entry.size) {
+					damaged.add(entry.path);
+				}
+				else if (attributes.lastModifiedTime().toMillis() != entry.lastModifiedTime) {
+					changed.add(entry);
+				}
+			}
+			catch (NoSuchFileException ex) {
+				damaged.add(entry.path);
+			}
+		}
+		//only files whose metadata changed are hashed again
+		List<Path> files = changed.stream().map(entry -> directory.resolve(entry.path)).collect(Collectors.toList());
+		for (Entry actual : createEntries(directory, files)) {
+			if (!actual.hash.equals(this.entries.get(actual.path).hash)) {
+				damaged.add(actual.path);
+			}
+			else {
+				//an intact file with new metadata is not hashed again once this manifest is saved
+				this.entries.put(actual.path, actual);
+				this.refreshed = true;
+			}
+		}
+		return damaged;
+	}
+
+	boolean isRefreshed() {
+		return this.refreshed;
+	}
+
+	void update(Path directory, Collection<String> paths) throws IOException {
+		List<Path> files = paths.stream().map(directory::resolve).collect(Collectors.toList());
+		for (Entry entry : createEntries(directory, files)) {
+			this.entries.put(entry.path, entry);
+		}
+	}
+
+	private static List<Entry> createEntries(Path directory, List<Path> files) throws IOException {
+		if (files.isEmpty()) {
+			return Collections.emptyList();
+		}
+		try {
+			return files.parallelStream().map(file -> createEntry(directory, file)).collect(Collectors.toList());
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private static Entry createEntry(Path directory, Path file) {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			String path = directory.relativize(file).toString().replace('\\', '/');
+			return new Entry(path, attributes.size(), attributes.lastModifiedTime().toMillis(),
+					FileUtils.checksum(file, ALGORITHM));
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static final class Entry {
+
+		private final String path;
+
+		private final long size;
+
+		private final long lastModifiedTime;
+
+		private final String hash;
+
+		Entry(String path, long size, long lastModifiedTime, String hash) {
+			this.path = path;
+			this.size = size;
+			this.lastModifiedTime = lastModifiedTime;
+			this.hash = hash;
+		}
+
+	}
+
+}
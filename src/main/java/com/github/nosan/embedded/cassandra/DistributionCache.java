@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+final class DistributionCache {
+
+	static final String SUCCESS_FILE = ".success";
+
+	static final String LOCK_FILE = ".lock";
+
+	static final String USE_LOCK_FILE = ".use.lock";
+
+	static final String SIZE = "size";
+
+	private static final Logger LOGGER = Logger.get(DistributionCache.class);
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	long getHits() {
+		return this.hits.get();
+	}
+
+	long getMisses() {
+		return this.misses.get();
+	}
+
+	long getEvictions() {
+		return this.evictions.get();
+	}
+
+	void hit(Path versionDirectory) {
+		this.hits.incrementAndGet();
+		try {
+			Files.setLastModifiedTime(versionDirectory.resolve(SUCCESS_FILE), FileTime.from(Instant.now()));
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Last access time of ''{0}'' could not be updated", versionDirectory);
+		}
+	}
+
+	void miss() {
+		this.misses.incrementAndGet();
+	}
+
+	void evict(Path versionDirectory, long maxSize) {
+		if (maxSize == Long.MAX_VALUE) {
+			return;
+		}
+		List<Entry> entries = new ArrayList<>();
+		long totalSize = 0;
+		try (Stream<Path> stream = Files.list(versionDirectory.getParent())) {
+			for (Path directory : stream.filter(Files::isDirectory).collect(Collectors.toList())) {
+				Path successFile = directory.resolve(SUCCESS_FILE);
+				if (!Files.exists(successFile)) {
+					continue;
+				}
+				Entry entry = new Entry(directory, Files.getLastModifiedTime(successFile), getSize(directory));
+				totalSize += entry.size;
+				if (!directory.equals(versionDirectory)) {
+					entries.add(entry);
+				}
+			}
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Cache ''{0}'' could not be read", versionDirectory.getParent());
+			return;
+		}
+		entries.sort(Comparator.comparing(entry -> entry.lastAccessTime));
+		boolean evicted = false;
+		for (Entry entry : entries) {
+			if (totalSize <= maxSize) {
+				break;
+			}
+			if (evict(entry)) {
+				totalSize -= entry.size;
+				evicted = true;
+			}
+		}
+		if (evicted) {
+			new DeduplicatingStore(versionDirectory.resolveSibling(DeduplicatingStore.STORE_DIRECTORY)).purge();
+		}
+		if (totalSize > maxSize) {
+			LOGGER.warn("Cache ''{0}'' is {1} bytes, which exceeds the quota of {2} bytes."
+					+ " Remaining versions are in use", versionDirectory.getParent(), totalSize, maxSize);
+		}
+	}
+
+	private boolean evict(Entry entry) {
+		FileLockRegistry.Lock lock;
+		try {
+			lock = FileLockRegistry.tryLock(entry.directory.resolve(USE_LOCK_FILE), false);
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Cassandra directory: ''{0}'' could not be evicted", entry.directory);
+			return false;
+		}
+		if (lock == null) {
+			LOGGER.info("Cassandra directory: ''{0}'' is in use and cannot be evicted", entry.directory);
+			return false;
+		}
+		try (FileLockRegistry.Lock ignore = lock) {
+			//the marker goes first, so a partially deleted directory is never treated as a valid one
+			Files.deleteIfExists(entry.directory.resolve(SUCCESS_FILE));
+			try (Stream<Path> stream = Files.list(entry.directory)) {
+				for (Path path : stream.collect(Collectors.toList())) {
+					String name = path.getFileName().toString();
+					if (!name.equals(LOCK_FILE) && !name.equals(USE_LOCK_FILE)) {
+						FileUtils.delete(path);
+					}
+				}
+			}
+			this.evictions.incrementAndGet();
+			LOGGER.info("Cassandra directory: ''{0}'' ({1} bytes) has been evicted", entry.directory, entry.size);
+			return true;
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Cassandra directory: ''{0}'' could not be evicted", entry.directory);
+			return false;
+		}
+	}
+
+	//a version directory is never evicted while it is used, that is, while its files are read, copied or launched
+	static FileLockRegistry.Lock use(Path versionDirectory) throws IOException {
+		Path lockFile = versionDirectory.resolve(USE_LOCK_FILE);
+		//eviction holds an exclusive lock only while files are deleted
+		FileLockRegistry.Lock lock = FileLockRegistry.tryLock(lockFile, true, 5, TimeUnit.MINUTES);
+		if (lock == null) {
+			throw new IOException(String.format("File lock could not be acquired for a file: '%s'", lockFile));
+		}
+		return lock;
+	}
+
+	//null if the directory has been evicted after it was provided, directories of other providers are not locked
+	static Closeable pin(Path cassandraDirectory) throws IOException {
+		Path versionDirectory = cassandraDirectory.toAbsolutePath().getParent();
+		if (versionDirectory == null || !Files.exists(versionDirectory.resolve(USE_LOCK_FILE))) {
+			return () -> {
+			};
+		}
+		FileLockRegistry.Lock lock = use(versionDirectory);
+		if (!Files.exists(versionDirectory.resolve(SUCCESS_FILE)) || !Files.isDirectory(cassandraDirectory)) {
+			lock.close();
+			return null;
+		}
+		return lock;
+	}
+
+	static long getSize(Path versionDirectory) throws IOException {
+		Path successFile = versionDirectory.resolve(SUCCESS_FILE);
+		if (Files.isRegularFile(successFile)) {
+			Properties properties = new Properties();
+			try (InputStream is = Files.newInputStream(successFile)) {
+				properties.load(is);
+			}
+			catch (IllegalArgumentException ex) {
+				//not a properties file
+			}
+			String size = properties.getProperty(SIZE);
+			if (size != null) {
+				try {
+					return Long.parseLong(size.trim());
+				}
+				catch (NumberFormatException ex) {
+					//ignore and compute
+				}
+			}
+		}
+		return computeSize(versionDirectory);
+	}
+
+	static long computeSize(Path directory) throws IOException {
+		try (Stream<Path> stream = Files.walk(directory)) {
+			long size = 0;
+			for (Path path : stream.collect(Collectors.toList())) {
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				if (attributes.isRegularFile()) {
+					size += attributes.size();
+				}
+			}
+			return size;
+		}
+	}
+
+	private static final class Entry {
+
+		private final Path directory;
+
+		private final FileTime lastAccessTime;
+
+		private final long size;
+
+		Entry(Path directory, FileTime lastAccessTime, long size) {
+			this.directory = directory;
+			this.lastAccessTime = lastAccessTime;
+			this.size = size;
+		}
+
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.FileLock;
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+final class EphemeralStorage {
+
+	static final String PREFIX = "embedded-cassandra-";
+
+	static final String MARKER_FILE = ".embedded-cassandra.ephemeral";
+
+	private static final Logger LOGGER = Logger.get(EphemeralStorage.class);
+
+	private static final String LOCK_SUFFIX = ".lock";
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	private static final Set<Path> DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+	private final Path root;
+
+	private final long minFreeSpace;
+
+	private volatile Path directory;
+
+	private volatile FileLock fileLock;
+
+	EphemeralStorage(Path root, long minFreeSpace) {
+		this.root = root;
+		this.minFreeSpace = minFreeSpace;
+	}
+
+	synchronized Path create() {
+		delete();
+		if (!Files.isDirectory(this.root) || !Files.isWritable(this.root)) {
+			LOGGER.warn("Ephemeral storage ''{0}'' is not available, the working directory is used instead",
+					this.root);
+			return null;
+		}
+		try {
+			sweep();
+			long usableSpace = Files.getFileStore(this.root).getUsableSpace();
+			if (usableSpace < this.minFreeSpace) {
+				LOGGER.warn("Ephemeral storage ''{0}'' has {1} bytes available, at least {2} bytes are required,"
+						+ " the working directory is used instead", this.root, usableSpace, this.minFreeSpace);
+				return null;
+			}
+			//the lock goes first, so the directory is never swept by another process
+			for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+				Path lockFile = Files.createTempFile(this.root, PREFIX, LOCK_SUFFIX);
+				FileLock fileLock = FileLock.of(lockFile);
+				if (!tryLock(fileLock)) {
+					//the lock file is held by another process, it is left to that process
+					LOGGER.debug("Ephemeral storage lock ''{0}'' could not be acquired, another one is created",
+							lockFile);
+					continue;
+				}
+				String name = lockFile.getFileName().toString();
+				Path directory = lockFile.resolveSibling(name.substring(0, name.length() - LOCK_SUFFIX.length()));
+				DIRECTORIES.add(directory);
+				this.directory = directory;
+				this.fileLock = fileLock;
+				return Files.createDirectory(directory);
+			}
+			throw new IOException(String.format("A lock could not be acquired in '%s' after %d attempts", this.root,
+					MAX_ATTEMPTS));
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Ephemeral storage ''{0}'' could not be created, the working directory is used instead",
+					this.root);
+			delete();
+			return null;
+		}
+	}
+
+	synchronized void delete() {
+		Path directory = this.directory;
+		FileLock fileLock = this.fileLock;
+		this.directory = null;
+		this.fileLock = null;
+		if (directory == null) {
+			return;
+		}
+		try {
+			FileUtils.delete(directory);
+			if (fileLock != null) {
+				fileLock.close();
+			}
+			Files.deleteIfExists(directory.resolveSibling(directory.getFileName() + LOCK_SUFFIX));
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Ephemeral storage ''{0}'' could not be deleted", directory);
+		}
+		finally {
+			DIRECTORIES.remove(directory);
+		}
+	}
+
+	private static boolean tryLock(FileLock fileLock) throws IOException {
+		try {
+			if (fileLock.tryLock(0, TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+		}
+		catch (IOException ex) {
+			fileLock.close();
+			throw ex;
+		}
+		fileLock.close();
+		return false;
+	}
+
+	private void sweep() throws IOException {
+		//directories of JVMs which were killed, memory is not released until they are deleted
+		List<Path> directories;
+		try (Stream<Path> stream = Files.list(this.root)) {
+			directories = stream.filter(path -> path.getFileName().toString().startsWith(PREFIX))
+					.filter(Files::isDirectory).filter(path -> !DIRECTORIES.contains(path))
+					.collect(Collectors.toList());
+		}
+		for (Path directory : directories) {
+			Path lockFile = directory.resolveSibling(directory.getFileName() + LOCK_SUFFIX);
+			try (FileLock lock = FileLock.of(lockFile)) {
+				if (lock.tryLock(0, TimeUnit.MILLISECONDS)) {
+					LOGGER.info("Deleting ephemeral storage ''{0}'' left by a stopped process", directory);
+					FileUtils.delete(directory);
+					Files.deleteIfExists(lockFile);
+				}
+			}
+			catch (IOException ex) {
+				LOGGER.debug(ex, "Ephemeral storage ''{0}'' could not be deleted", directory);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link CassandraBuilderConfigurator} that configures a single-node Cassandra to start as fast as possible. The
+ * settings are chosen according to the {@link CassandraBuilder#getVersion() version} of the builder, thus the version
+ * must be set before this configurator is applied.
+ * <p>
+ * The following settings are applied:
+ * <ul>
+ *     <li>{@code cassandra.skip_wait_for_gossip_to_settle=0} and {@code cassandra.ring_delay_ms=0} system
+ *     properties, there are no other nodes to wait for</li>
+ *     <li>{@code cassandra.superuser_setup_delay_ms=0} system property (3.x and later), the default superuser is
+ *     created immediately</li>
+ *     <li>{@code num_tokens: 1}</li>
+ *     <li>{@code concurrent_reads}, {@code concurrent_writes}, {@code concurrent_counter_writes} (2.1 and later),
+ *     {@code concurrent_materialized_view_writes} (3.x and later) set to {@code 2}, and
+ *     {@code concurrent_compactors: 1}</li>
+ *     <li>{@code auto_snapshot: false} and {@code hinted_handoff_enabled: false}</li>
+ *     <li>{@code -XX:TieredStopAtLevel=1} JVM option, a short-lived JVM does not benefit from the C2 compiler</li>
+ * </ul>
+ * <p>
+ * <b>Note!</b> These settings are intended for tests only. Cassandra refuses to start if the number of tokens differs
+ * from the number used by already existing data, so a working directory created without this configurator cannot be
+ * reused with it. Any of these settings can be overridden by configuring the builder after this configurator.
+ *
+ * @author Dmytro Nosan
+ * @see CassandraBuilder#configure(CassandraBuilderConfigurator)
+ * @since 4.0.7
+ */
+public final class FastBootConfigurator implements CassandraBuilderConfigurator {
+
+	@Override
+	public void configure(CassandraBuilder builder) {
+		Objects.requireNonNull(builder, "Cassandra Builder must not be null");
+		Version version = builder.getVersion();
+		Map<String, Object> systemProperties = new LinkedHashMap<>();
+		systemProperties.put("cassandra.skip_wait_for_gossip_to_settle", 0);
+		systemProperties.put("cassandra.ring_delay_ms", 0);
+		if (version.getMajor() >= 3) {
+			systemProperties.put("cassandra.superuser_setup_delay_ms", 0);
+		}
+		Map<String, Object> configProperties = new LinkedHashMap<>();
+		configProperties.put("num_tokens", 1);
+		//Cassandra does not accept less than 2 concurrent reads and writes
+		configProperties.put("concurrent_reads", 2);
+		configProperties.put("concurrent_writes", 2);
+		//concurrent_counter_writes is not known to Cassandra 2.0
+		if (version.compareTo(Version.parse("2.1")) >= 0) {
+			configProperties.put("concurrent_counter_writes", 2);
+		}
+		if (version.getMajor() >= 3) {
+			configProperties.put("concurrent_materialized_view_writes", 2);
+		}
+		configProperties.put("concurrent_compactors", 1);
+		configProperties.put("auto_snapshot", false);
+		configProperties.put("hinted_handoff_enabled", false);
+		builder.addSystemProperties(systemProperties);
+		builder.addConfigProperties(configProperties);
+		builder.addJvmOptions("-XX:TieredStopAtLevel=1");
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+final class FileLockRegistry {
+
+	//a lock file must not be opened twice by this JVM, closing a channel releases all locks of the file
+	private static final Map<Path, Entry> ENTRIES = new HashMap<>();
+
+	private FileLockRegistry() {
+	}
+
+	static Lock tryLock(Path file, boolean shared) throws IOException {
+		Path key = file.normalize().toAbsolutePath();
+		synchronized (ENTRIES) {
+			Entry entry = ENTRIES.get(key);
+			if (entry != null) {
+				if (!shared || !entry.shared) {
+					return null;
+				}
+				entry.holders++;
+				return new Lock(key);
+			}
+			FileChannel fileChannel = FileChannel.open(key, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.CREATE);
+			FileLock fileLock;
+			try {
+				fileLock = fileChannel.tryLock(0, Long.MAX_VALUE, shared);
+			}
+			catch (IOException | RuntimeException ex) {
+				fileChannel.close();
+				throw ex;
+			}
+			if (fileLock == null) {
+				fileChannel.close();
+				return null;
+			}
+			ENTRIES.put(key, new Entry(fileChannel, shared));
+			return new Lock(key);
+		}
+	}
+
+	static Lock tryLock(Path file, boolean shared, long timeout, TimeUnit timeUnit) throws IOException {
+		long startTime = System.nanoTime();
+		long rem = timeUnit.toNanos(timeout);
+		do {
+			Lock lock = tryLock(file, shared);
+			if (lock != null) {
+				return lock;
+			}
+			if (rem > 0) {
+				try {
+					Thread.sleep(Math.min(TimeUnit.NANOSECONDS.toMillis(rem) + 1, 100));
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException(String.format("Interrupted while locking '%s'", file));
+				}
+			}
+			rem = timeUnit.toNanos(timeout) - (System.nanoTime() - startTime);
+		} while (rem > 0);
+		return null;
+	}
+
+	static final class Lock implements Closeable {
+
+		private final Path file;
+
+		private boolean released;
+
+		private Lock(Path file) {
+			this.file = file;
+		}
+
+		@Override
+		public void close() throws IOException {
+			synchronized (ENTRIES) {
+				if (this.released) {
+					return;
+				}
+				this.released = true;
+				Entry entry = ENTRIES.get(this.file);
+				if (entry != null && --entry.holders == 0) {
+					ENTRIES.remove(this.file);
+					entry.fileChannel.close();
+				}
+			}
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final FileChannel fileChannel;
+
+		private final boolean shared;
+
+		private int holders = 1;
+
+		Entry(FileChannel fileChannel, boolean shared) {
+			this.fileChannel = fileChannel;
+			this.shared = shared;
+		}
+
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+final class HardLinks {
+
+	private static final Logger LOGGER = Logger.get(HardLinks.class);
+
+	private HardLinks() {
+	}
+
+	static boolean link(Path src, Path dest) {
+		try {
+			Files.walkFileTree(src, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attrs)
+						throws IOException {
+					Files.createDirectories(dest.resolve(src.relativize(directory)));
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					Path link = dest.resolve(src.relativize(file));
+					Files.deleteIfExists(link);
+					Files.createLink(link, file);
+					return FileVisitResult.CONTINUE;
+				}
+
+			});
+			return true;
+		}
+		catch (UnsupportedOperationException | IOException ex) {
+			//e.g. the destination is on a different file store
+			LOGGER.warn("''{0}'' could not be linked into ''{1}'', the files will be copied. Caused by: {2}", src,
+					dest, ex);
+			return false;
+		}
+	}
+
+}
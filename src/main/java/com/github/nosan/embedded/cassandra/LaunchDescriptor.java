@@ -0,0 +1,406 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.StringUtils;
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+final class LaunchDescriptor {
+
+	static final String DISTRIBUTION_FILE = ".embedded-cassandra.distribution";
+
+	static final String DESCRIPTOR_FILE = ".launch";
+
+	static final String MANIFEST_FILE = ".embedded-cassandra.launch";
+
+	private static final Logger LOGGER = Logger.get(LaunchDescriptor.class);
+
+	private static final List<String> OPTIONS_FILES = Collections.unmodifiableList(Arrays.asList("jvm.options",
+			"jvm-server.options", "jvm8-server.options", "jvm11-server.options", "jvm17-server.options"));
+
+	private static final Map<Path, LaunchDescriptor> DESCRIPTORS = new ConcurrentHashMap<>();
+
+	private final Path file;
+
+	private final String manifest;
+
+	private final List<String> classpath;
+
+	private final List<String> agents;
+
+	private final Map<String, List<String>> options;
+
+	private final Map<String, String> javaVersions;
+
+	private LaunchDescriptor(Path file, String manifest, List<String> classpath, List<String> agents,
+			Map<String, List<String>> options, Map<String, String> javaVersions) {
+		this.file = file;
+		this.manifest = manifest;
+		this.classpath = Collections.unmodifiableList(classpath);
+		this.agents = Collections.unmodifiableList(agents);
+		this.options = Collections.unmodifiableMap(options);
+		this.javaVersions = new ConcurrentHashMap<>(javaVersions);
+	}
+
+	static void link(Path cassandraDirectory, Path workingDirectory) throws IOException {
+		//launch files are compared with the distribution by content, a customizer can change them within the same
+		//timestamp tick without changing their size
+		Path manifestFile = workingDirectory.resolve(MANIFEST_FILE);
+		DirectoryManifest manifest = DirectoryManifest.load(
+				cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE));
+		if (manifest != null) {
+			manifest.copy(workingDirectory, getLaunchFiles(workingDirectory)).save(manifestFile);
+		}
+		else {
+			Files.deleteIfExists(manifestFile);
+		}
+		Files.write(workingDirectory.resolve(DISTRIBUTION_FILE), Collections.singleton(
+				cassandraDirectory.normalize().toAbsolutePath().toString()), StandardCharsets.UTF_8);
+	}
+
+	//a linked distribution must not be evicted while it is launched from, null if the working directory is not linked
+	static Closeable pin(Path workingDirectory) throws IOException {
+		Path cassandraDirectory = readLink(workingDirectory);
+		if (cassandraDirectory == null) {
+			return null;
+		}
+		Closeable pin = DistributionCache.pin(cassandraDirectory);
+		if (pin == null) {
+			//evicted, the files of the working directory are used instead
+			Files.deleteIfExists(workingDirectory.resolve(DISTRIBUTION_FILE));
+		}
+		return pin;
+	}
+
+	static LaunchDescriptor get(Path workingDirectory) throws IOException {
+		Path cassandraDirectory = getDistribution(workingDirectory);
+		if (cassandraDirectory != null) {
+			String manifest = getManifest(cassandraDirectory);
+			if (manifest != null) {
+				LaunchDescriptor descriptor = DESCRIPTORS.compute(cassandraDirectory, (path, previous) -> {
+					if (previous != null && previous.manifest.equals(manifest)) {
+						return previous;
+					}
+					return loadOrCreate(path, manifest);
+				});
+				if (descriptor != null) {
+					return descriptor;
+				}
+			}
+		}
+		return create(workingDirectory, null, null);
+	}
+
+	List<String> getClasspath() {
+		return this.classpath;
+	}
+
+	List<String> getAgents() {
+		return this.agents;
+	}
+
+	List<String> getOptions(String name) {
+		return this.options.get(name);
+	}
+
+	int getJavaVersion(Path javaHome) {
+		Path home = javaHome.normalize().toAbsolutePath();
+		String stamp = getJavaStamp(home);
+		String value = this.javaVersions.get(home.toString());
+		if (value != null && value.startsWith(stamp + ":")) {
+			return Integer.parseInt(value.substring(stamp.length() + 1));
+		}
+		int version = probeJavaVersion(home);
+		this.javaVersions.put(home.toString(), stamp + ":" + version);
+		if (this.file != null) {
+			try {
+				save();
+			}
+			catch (IOException ex) {
+				LOGGER.debug(ex, "Launch descriptor ''{0}'' could not be saved", this.file);
+			}
+		}
+		return version;
+	}
+
+	static Path getDistribution(Path workingDirectory) throws IOException {
+		Path cassandraDirectory = readLink(workingDirectory);
+		if (cassandraDirectory == null || !Files.isDirectory(cassandraDirectory)) {
+			return null;
+		}
+		DirectoryManifest distribution = DirectoryManifest.load(
+				cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE));
+		Path manifestFile = workingDirectory.resolve(MANIFEST_FILE);
+		DirectoryManifest previous = DirectoryManifest.load(manifestFile);
+		if (distribution == null || previous == null) {
+			return null;
+		}
+		//only files modified before the manifest was saved can be trusted by their metadata
+		long saved = Files.getLastModifiedTime(manifestFile).toMillis();
+		DirectoryManifest manifest = DirectoryManifest.create(workingDirectory, getLaunchFiles(workingDirectory),
+				previous, saved);
+		if (!manifest.isModifiedBefore(saved)) {
+			try {
+				manifest.save(manifestFile);
+			}
+			catch (IOException ex) {
+				LOGGER.debug(ex, "Manifest ''{0}'' could not be saved", manifestFile);
+			}
+		}
+		//lib or options files were customized after the working directory was initialized,
+		//conf itself is not checked, a config file is always created there before a launch
+		Set<String> paths = distribution.getPaths().stream().filter(LaunchDescriptor::isLaunchFile)
+				.collect(Collectors.toSet());
+		if (!manifest.getPaths().equals(paths) || !manifest.hasSameContent(distribution)) {
+			return null;
+		}
+		return cassandraDirectory;
+	}
+
+	private static Path readLink(Path workingDirectory) throws IOException {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(workingDirectory.resolve(DISTRIBUTION_FILE), StandardCharsets.UTF_8);
+		}
+		catch (NoSuchFileException ex) {
+			return null;
+		}
+		if (lines.isEmpty() || !StringUtils.hasText(lines.get(0))) {
+			return null;
+		}
+		return Paths.get(lines.get(0).trim());
+	}
+
+	static String getManifest(Path cassandraDirectory) throws IOException {
+		Path manifestFile = cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE);
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(manifestFile, BasicFileAttributes.class);
+			return attributes.size() + "-" + attributes.lastModifiedTime().toMillis();
+		}
+		catch (NoSuchFileException ex) {
+			return null;
+		}
+	}
+
+	private static LaunchDescriptor loadOrCreate(Path cassandraDirectory, String manifest) {
+		Path file = cassandraDirectory.resolveSibling(DESCRIPTOR_FILE);
+		LaunchDescriptor descriptor;
+		try {
+			descriptor = load(file);
+			if (descriptor != null && descriptor.manifest.equals(manifest)) {
+				return descriptor;
+			}
+			descriptor = create(cassandraDirectory, file, manifest);
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Launch descriptor ''{0}'' could not be created", file);
+			return null;
+		}
+		try {
+			descriptor.save();
+		}
+		catch (IOException ex) {
+			LOGGER.debug(ex, "Launch descriptor ''{0}'' could not be saved", file);
+		}
+		return descriptor;
+	}
+
+	private static LaunchDescriptor load(Path file) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		Properties properties = new Properties();
+		try (InputStream is = Files.newInputStream(file)) {
+			properties.load(is);
+		}
+		catch (IOException ex) {
+			LOGGER.debug(ex, "Launch descriptor ''{0}'' could not be loaded", file);
+			return null;
+		}
+		Map<String, List<String>> options = new LinkedHashMap<>();
+		Map<String, String> javaVersions = new LinkedHashMap<>();
+		for (String name : properties.stringPropertyNames()) {
+			if (name.startsWith("options.")) {
+				options.put(name.substring(8), split(properties.getProperty(name), "\n"));
+			}
+			else if (name.startsWith("java.")) {
+				javaVersions.put(name.substring(5), properties.getProperty(name));
+			}
+		}
+		return new LaunchDescriptor(file, properties.getProperty("manifest", ""),
+				split(properties.getProperty("classpath"), ","), split(properties.getProperty("agents"), ","),
+				options, javaVersions);
+	}
+
+	private static LaunchDescriptor create(Path directory, Path file, String manifest) throws IOException {
+		List<String> classpath = new ArrayList<>();
+		List<String> agents = new ArrayList<>();
+		Path lib = directory.resolve("lib");
+		for (Path jar : list(lib)) {
+			classpath.add(directory.relativize(jar).toString());
+			if (jar.getFileName().toString().startsWith("jamm-")) {
+				agents.add(directory.relativize(jar).toString());
+			}
+		}
+		Path jsr223 = lib.resolve("jsr223");
+		if (Files.isDirectory(jsr223)) {
+			try (Stream<Path> stream = Files.list(jsr223)) {
+				for (Path path : stream.filter(Files::isDirectory).sorted().collect(Collectors.toList())) {
+					for (Path jar : list(path)) {
+						classpath.add(directory.relativize(jar).toString());
+					}
+				}
+			}
+		}
+		Map<String, List<String>> options = new LinkedHashMap<>();
+		for (String name : OPTIONS_FILES) {
+			Path optionsFile = directory.resolve("conf").resolve(name);
+			if (Files.exists(optionsFile)) {
+				try (Stream<String> lines = Files.lines(optionsFile)) {
+					options.put(name, lines.map(String::trim).filter(line -> line.startsWith("-"))
+							.collect(Collectors.toList()));
+				}
+			}
+		}
+		return new LaunchDescriptor(file, manifest, classpath, agents, options, Collections.emptyMap());
+	}
+
+	private synchronized void save() throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("manifest", this.manifest);
+		properties.setProperty("classpath", String.join(",", this.classpath));
+		properties.setProperty("agents", String.join(",", this.agents));
+		this.options.forEach((name, lines) -> properties.setProperty("options." + name, String.join("\n", lines)));
+		this.javaVersions.forEach((home, version) -> properties.setProperty("java." + home, version));
+		Path tempFile = this.file.resolveSibling(this.file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			try (OutputStream os = Files.newOutputStream(tempFile)) {
+				properties.store(os, null);
+			}
+			Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static List<Path> getLaunchFiles(Path workingDirectory) throws IOException {
+		List<Path> files = new ArrayList<>();
+		Path lib = workingDirectory.resolve("lib");
+		if (Files.isDirectory(lib)) {
+			try (Stream<Path> stream = Files.walk(lib)) {
+				files.addAll(stream.filter(Files::isRegularFile).collect(Collectors.toList()));
+			}
+		}
+		for (String name : OPTIONS_FILES) {
+			Path optionsFile = workingDirectory.resolve("conf").resolve(name);
+			if (Files.isRegularFile(optionsFile)) {
+				files.add(optionsFile);
+			}
+		}
+		return files;
+	}
+
+	private static boolean isLaunchFile(String path) {
+		return path.startsWith("lib/") || (path.startsWith("conf/") && OPTIONS_FILES.contains(path.substring(5)));
+	}
+
+	private static List<Path> list(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return new ArrayList<>();
+		}
+		try (Stream<Path> stream = Files.list(directory)) {
+			return stream.filter(path -> path.getFileName().toString().endsWith(".jar"))
+					.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static List<String> split(String value, String separator) {
+		if (!StringUtils.hasText(value)) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(Arrays.asList(value.split(separator)));
+	}
+
+	private static String getJavaStamp(Path javaHome) {
+		try {
+			return Long.toString(Files.getLastModifiedTime(javaHome.resolve("release")).toMillis());
+		}
+		catch (IOException ex) {
+			return "0";
+		}
+	}
+
+	private static int probeJavaVersion(Path javaHome) {
+		//'java -version' is what cassandra-env.sh runs on every start
+		String version = null;
+		if (javaHome.equals(Paths.get(System.getProperty("java.home")).normalize().toAbsolutePath())) {
+			version = System.getProperty("java.specification.version");
+		}
+		else {
+			Path release = javaHome.resolve("release");
+			try (InputStream is = Files.newInputStream(release)) {
+				Properties properties = new Properties();
+				properties.load(is);
+				version = properties.getProperty("JAVA_VERSION", "").replace("\"", "");
+			}
+			catch (IOException ex) {
+				LOGGER.debug(ex, "''{0}'' could not be read", release);
+			}
+		}
+		return parseJavaVersion(version);
+	}
+
+	private static int parseJavaVersion(String version) {
+		if (!StringUtils.hasText(version)) {
+			return 8;
+		}
+		String[] tokens = version.split("[._\\-+]");
+		try {
+			int major = Integer.parseInt(tokens[0]);
+			return (major == 1 && tokens.length > 1) ? Integer.parseInt(tokens[1]) : major;
+		}
+		catch (NumberFormatException ex) {
+			return 8;
+		}
+	}
+
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.github.nosan.embedded.cassandra.WebCassandraDirectoryProvider.CassandraPackage;
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+import com.github.nosan.embedded.cassandra.commons.web.HttpClient;
+import com.github.nosan.embedded.cassandra.commons.web.HttpHeaders;
+import com.github.nosan.embedded.cassandra.commons.web.HttpRequest;
+import com.github.nosan.embedded.cassandra.commons.web.HttpResponse;
+
+final class MirrorSelector {
+
+	private static final Logger LOGGER = Logger.get(MirrorSelector.class);
+
+	private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+	private static final int SAMPLE_SIZE = 64 * 1024;
+
+	//an approximate size of the archive, it turns latency and throughput into a single estimated time
+	private static final double REFERENCE_SIZE = 50 * 1024 * 1024;
+
+	private static final long PROBE_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+	private static final long MIN_GRACE_PERIOD = TimeUnit.MILLISECONDS.toNanos(250);
+
+	private static final double SMOOTHING = 0.5;
+
+	private final HttpClient httpClient;
+
+	private final Path statsFile;
+
+	private final Set<HttpResponse> responses = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean cancelled;
+
+	MirrorSelector(HttpClient httpClient, Path statsFile) {
+		this.httpClient = httpClient;
+		this.statsFile = statsFile;
+	}
+
+	List<CassandraPackage> rank(List<CassandraPackage> packages) {
+		Properties stats = loadStats();
+		Map<CassandraPackage, Probe> probes = probe(packages);
+		for (Probe probe : probes.values()) {
+			update(stats, probe);
+		}
+		saveStats(stats);
+		List<CassandraPackage> ranked = new ArrayList<>(packages);
+		ranked.sort(Comparator.<CassandraPackage>comparingInt(cassandraPackage -> {
+			Probe probe = probes.get(cassandraPackage);
+			if (probe == null) {
+				return 1;
+			}
+			return probe.isFailed() ? 2 : 0;
+		}).thenComparingDouble(cassandraPackage -> getEstimatedTime(stats, getHost(cassandraPackage.getUri()))));
+		LOGGER.info("Packages are ranked by mirror: {0}", ranked.stream().map(CassandraPackage::getUri)
+				.map(MirrorSelector::getHost).distinct().collect(Collectors.joining(", ")));
+		return ranked;
+	}
+
+	private Map<CassandraPackage, Probe> probe(List<CassandraPackage> packages) {
+		Map<CassandraPackage, Probe> probes = new IdentityHashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(packages.size(), runnable -> {
+			Thread thread = new Thread(runnable, "cassandra-mirror-" + THREAD_ID.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			ExecutorCompletionService<Probe> completionService = new ExecutorCompletionService<>(executor);
+			for (CassandraPackage cassandraPackage : packages) {
+				completionService.submit(() -> probe(cassandraPackage));
+			}
+			long deadline = System.nanoTime() + PROBE_TIMEOUT;
+			boolean winner = false;
+			for (int i = 0; i < packages.size(); i++) {
+				long timeout = deadline - System.nanoTime();
+				Future<Probe> future = (timeout > 0) ? completionService.poll(timeout, TimeUnit.NANOSECONDS) : null;
+				if (future == null) {
+					break;
+				}
+				Probe probe = future.get();
+				probes.put(probe.getCassandraPackage(), probe);
+				if (!probe.isFailed() && !winner) {
+					winner = true;
+					//give the others a chance, but do not wait for mirrors that are much slower than the winner
+					deadline = Math.min(deadline, System.nanoTime() + Math.max(MIN_GRACE_PERIOD, probe.getElapsed()));
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException ex) {
+			LOGGER.error(ex.getCause(), "Could not probe mirrors");
+		}
+		finally {
+			this.cancelled = true;
+			for (HttpResponse response : this.responses) {
+				closeSilently(response);
+			}
+			executor.shutdownNow();
+		}
+		for (CassandraPackage cassandraPackage : packages) {
+			if (!probes.containsKey(cassandraPackage)) {
+				LOGGER.info("Probe of ''{0}'' has been cancelled", cassandraPackage.getUri());
+			}
+		}
+		return probes;
+	}
+
+	private Probe probe(CassandraPackage cassandraPackage) {
+		URI uri = cassandraPackage.getUri();
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Range", "bytes=0-" + (SAMPLE_SIZE - 1));
+		long start = System.nanoTime();
+		try (HttpResponse response = this.httpClient.send(new HttpRequest(uri, "GET", headers))) {
+			this.responses.add(response);
+			if (this.cancelled) {
+				return new Probe(cassandraPackage);
+			}
+			int status = response.getStatus();
+			if (status != 200 && status != 206) {
+				LOGGER.warn("Mirror ''{0}'' could not be used. Error: {1}", getHost(uri), response);
+				return new Probe(cassandraPackage);
+			}
+			long firstByte = System.nanoTime();
+			long readBytes = 0;
+			byte[] buffer = new byte[8192];
+			try (InputStream is = response.getInputStream()) {
+				int read;
+				while (readBytes < SAMPLE_SIZE && (read = is.read(buffer)) != -1) {
+					readBytes += read;
+				}
+			}
+			finally {
+				this.responses.remove(response);
+			}
+			long end = System.nanoTime();
+			double throughput = readBytes * 1e9 / Math.max(1, end - firstByte);
+			Probe probe = new Probe(cassandraPackage, firstByte - start, throughput, end - start);
+			LOGGER.info("Mirror ''{0}'' responded in {1} ms ({2} KB/s)", getHost(uri),
+					TimeUnit.NANOSECONDS.toMillis(probe.getTimeToFirstByte()), (long) (throughput / 1024));
+			return probe;
+		}
+		catch (Exception ex) {
+			if (!this.cancelled) {
+				LOGGER.warn("Mirror ''{0}'' could not be used. Error: {1}", getHost(uri), ex);
+			}
+			return new Probe(cassandraPackage);
+		}
+	}
+
+	private Properties loadStats() {
+		Properties stats = new Properties();
+		if (Files.exists(this.statsFile)) {
+			try (InputStream is = Files.newInputStream(this.statsFile)) {
+				stats.load(is);
+			}
+			catch (Exception ex) {
+				LOGGER.warn(ex, "Mirror stats ''{0}'' could not be loaded", this.statsFile);
+			}
+		}
+		return stats;
+	}
+
+	private void saveStats(Properties stats) {
+		try {
+			Path tempFile = Files.createTempFile(this.statsFile.getParent(), this.statsFile.getFileName().toString(),
+					".tmp");
+			try {
+				try (OutputStream os = Files.newOutputStream(tempFile)) {
+					stats.store(os, null);
+				}
+				Files.move(tempFile, this.statsFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+		catch (Exception ex) {
+			LOGGER.warn(ex, "Mirror stats ''{0}'' could not be saved", this.statsFile);
+		}
+	}
+
+	private static void update(Properties stats, Probe probe) {
+		String host = getHost(probe.getCassandraPackage().getUri());
+		if (probe.isFailed()) {
+			stats.setProperty(host + ".failures", Long.toString(getLong(stats, host + ".failures", 0) + 1));
+			return;
+		}
+		long timeToFirstByte = probe.getTimeToFirstByte();
+		double throughput = probe.getThroughput();
+		if (stats.containsKey(host + ".ttfb") && stats.containsKey(host + ".throughput")) {
+			timeToFirstByte = (long) (SMOOTHING * timeToFirstByte
+					+ (1 - SMOOTHING) * getLong(stats, host + ".ttfb", timeToFirstByte));
+			throughput = SMOOTHING * throughput
+					+ (1 - SMOOTHING) * getLong(stats, host + ".throughput", (long) throughput);
+		}
+		stats.setProperty(host + ".ttfb", Long.toString(timeToFirstByte));
+		stats.setProperty(host + ".throughput", Long.toString((long) throughput));
+		stats.setProperty(host + ".failures", "0");
+	}
+
+	private static double getEstimatedTime(Properties stats, String host) {
+		long timeToFirstByte = getLong(stats, host + ".ttfb", -1);
+		long throughput = getLong(stats, host + ".throughput", -1);
+		if (timeToFirstByte < 0 || throughput <= 0) {
+			return Double.MAX_VALUE;
+		}
+		double estimatedTime = timeToFirstByte / 1e9 + REFERENCE_SIZE / throughput;
+		return estimatedTime * (1 + getLong(stats, host + ".failures", 0));
+	}
+
+	private static long getLong(Properties stats, String name, long defaultValue) {
+		try {
+			String value = stats.getProperty(name);
+			return (value != null) ? Long.parseLong(value.trim()) : defaultValue;
+		}
+		catch (NumberFormatException ex) {
+			return defaultValue;
+		}
+	}
+
+	private static String getHost(URI uri) {
+		return uri.getScheme() + "://" + uri.getAuthority();
+	}
+
+	private static void closeSilently(HttpResponse response) {
+		try {
+			response.close();
+		}
+		catch (Exception ex) {
+			//ignore
+		}
+	}
+
+	private static final class Probe {
+
+		private final CassandraPackage cassandraPackage;
+
+		private final boolean failed;
+
+		private final long timeToFirstByte;
+
+		private final double throughput;
+
+		private final long elapsed;
+
+		Probe(CassandraPackage cassandraPackage) {
+			this.cassandraPackage = cassandraPackage;
+			this.failed = true;
+			this.timeToFirstByte = -1;
+			this.throughput = -1;
+			this.elapsed = -1;
+		}
+
+		Probe(CassandraPackage cassandraPackage, long timeToFirstByte, double throughput, long elapsed) {
+			this.cassandraPackage = cassandraPackage;
+			this.failed = false;
+			this.timeToFirstByte = timeToFirstByte;
+			this.throughput = throughput;
+			this.elapsed = elapsed;
+		}
+
+		CassandraPackage getCassandraPackage() {
+			return this.cassandraPackage;
+		}
+
+		boolean isFailed() {
+			return this.failed;
+		}
+
+		long getTimeToFirstByte() {
+			return this.timeToFirstByte;
+		}
+
+		double getThroughput() {
+			return this.throughput;
+		}
+
+		long getElapsed() {
+			return this.elapsed;
+		}
+
+	}
+
+}
@@ -19,6 +19,7 @@ package com.github.nosan.embedded.cassandra;
 import java.io.Closeable;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -41,6 +42,8 @@ class NativeTransportParser implements Consumer<String>, Closeable {
 
 	private final CassandraDatabase database;
 
+	private final CompletableFuture<Void> parsed = new CompletableFuture<>();
+
 	private volatile InetAddress address;
 
 	private volatile Integer sslPort;
@@ -54,6 +57,9 @@ class NativeTransportParser implements Consumer<String>, Closeable {
 	NativeTransportParser(CassandraDatabase database) {
 		this.database = database;
 		this.disabled = database.getVersion().getMajor() < 2;
+		if (this.disabled) {
+			this.parsed.complete(null);
+		}
 		database.getStdOut().attach(this);
 		database.getStdErr().attach(this);
 	}
@@ -79,6 +85,9 @@ class NativeTransportParser implements Consumer<String>, Closeable {
 		else if (this.address != null && FAILED_TO_BIND.matcher(line).find()) {
 			this.failed = true;
 		}
+		if (this.failed || isParsed()) {
+			this.parsed.complete(null);
+		}
 	}
 
 	@Override
@@ -91,6 +100,10 @@ class NativeTransportParser implements Consumer<String>, Closeable {
 		return this.failed;
 	}
 
+	CompletableFuture<Void> onParsed() {
+		return this.parsed;
+	}
+
 	boolean isParsed() {
 		if (this.disabled) {
 			return true;
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+final class PortAllocator {
+
+	private static final Logger LOGGER = Logger.get(PortAllocator.class);
+
+	private final Path directory;
+
+	private final int fromPort;
+
+	private final int toPort;
+
+	private final List<FileLockRegistry.Lock> leases = new ArrayList<>();
+
+	PortAllocator(Path directory, int fromPort, int toPort) {
+		this.directory = directory.normalize().toAbsolutePath();
+		this.fromPort = fromPort;
+		this.toPort = toPort;
+	}
+
+	synchronized int allocate() throws IOException {
+		Files.createDirectories(this.directory);
+		int count = this.toPort - this.fromPort + 1;
+		//a random start spreads concurrent JVMs over the range, and a just released port is not reused right away
+		int offset = ThreadLocalRandom.current().nextInt(count);
+		for (int i = 0; i < count; i++) {
+			int port = this.fromPort + (offset + i) % count;
+			Path lockFile = this.directory.resolve(port + ".lock");
+			FileLockRegistry.Lock lock = FileLockRegistry.tryLock(lockFile, false);
+			if (lock != null) {
+				//the port can be used by a process that does not use leases
+				if (isAvailable(port)) {
+					this.leases.add(lock);
+					return port;
+				}
+				lock.close();
+			}
+		}
+		throw new IOException(String.format("There is no free port in range [%d, %d]", this.fromPort, this.toPort));
+	}
+
+	synchronized void release() {
+		for (FileLockRegistry.Lock lock : this.leases) {
+			try {
+				lock.close();
+			}
+			catch (IOException ex) {
+				LOGGER.debug(ex, "Port lease could not be released");
+			}
+		}
+		this.leases.clear();
+	}
+
+	private static boolean isAvailable(int port) {
+		try (ServerSocket ss = new ServerSocket(port)) {
+			return true;
+		}
+		catch (IOException ex) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+import com.github.nosan.embedded.cassandra.commons.web.HttpClient;
+import com.github.nosan.embedded.cassandra.commons.web.HttpHeaders;
+import com.github.nosan.embedded.cassandra.commons.web.HttpRequest;
+import com.github.nosan.embedded.cassandra.commons.web.HttpResponse;
+
+final class RangeDownloader {
+
+	private static final Logger LOGGER = Logger.get(RangeDownloader.class);
+
+	private static final Pattern CONTENT_RANGE = Pattern.compile("^bytes\\s+(\\d+)-(\\d+)/(\\d+)$",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+	private static final long MIN_SEGMENT_SIZE = 64 * 1024;
+
+	private static final long SAVE_INTERVAL = 1024 * 1024;
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	private static final int BUFFER_SIZE = 65536;
+
+	private final HttpClient httpClient;
+
+	private final Set<HttpResponse> responses = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean cancelled;
+
+	RangeDownloader(HttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	RemoteFile probe(URI uri) throws IOException {
+		//a one-byte ranged GET instead of HEAD, it follows redirects and proves that ranges are honoured.
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Range", "bytes=0-0");
+		try (HttpResponse response = this.httpClient.send(new HttpRequest(uri, "GET", headers))) {
+			int status = response.getStatus();
+			if (status == 206) {
+				Matcher matcher = response.getHeaders().getFirst("Content-Range").map(String::trim)
+						.map(CONTENT_RANGE::matcher).filter(Matcher::find).orElse(null);
+				if (matcher != null) {
+					return new RemoteFile(response.getUri(), Long.parseLong(matcher.group(3)),
+							getValidator(response.getHeaders()));
+				}
+				return null;
+			}
+			if (status == 200) {
+				return null;
+			}
+			throw new FileNotFoundException(String.format("Could not download a file. Error: %s", response));
+		}
+	}
+
+	void download(RemoteFile remoteFile, Path file, Path stateFile, int connections) throws IOException {
+		long length = remoteFile.getLength();
+		DownloadState state = DownloadState.load(remoteFile, file, stateFile);
+		if (state == null) {
+			state = new DownloadState(remoteFile, stateFile, split(length, connections));
+			Files.deleteIfExists(file);
+		}
+		else {
+			LOGGER.info("Resuming download from {0} / {1} bytes", state.getReadBytes(), length);
+		}
+		state.save();
+		List<Range> ranges = new ArrayList<>();
+		for (Range range : state.getRanges()) {
+			if (!range.isComplete()) {
+				ranges.add(range);
+			}
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			try {
+				if (length > 0 && channel.size() < length) {
+					channel.write(ByteBuffer.allocate(1), length - 1);
+				}
+				if (!ranges.isEmpty()) {
+					download(remoteFile, ranges, channel, state);
+				}
+			}
+			finally {
+				state.save(channel);
+			}
+		}
+	}
+
+	private void download(RemoteFile remoteFile, List<Range> ranges, FileChannel channel, DownloadState state)
+			throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(ranges.size(), runnable -> {
+			Thread thread = new Thread(runnable, "cassandra-download-" + THREAD_ID.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			ExecutorCompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+			for (Range range : ranges) {
+				completionService.submit(() -> {
+					download(remoteFile, range, channel, state);
+					return null;
+				});
+			}
+			for (int i = 0; i < ranges.size(); i++) {
+				completionService.take().get();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Download has been interrupted");
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+		finally {
+			this.cancelled = true;
+			executor.shutdownNow();
+			closeResponses();
+		}
+	}
+
+	private void download(RemoteFile remoteFile, Range range, FileChannel channel, DownloadState state)
+			throws IOException {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				downloadRange(remoteFile, range, channel, state);
+				return;
+			}
+			catch (IOException ex) {
+				if (attempt >= MAX_ATTEMPTS || this.cancelled || state.isInvalid()) {
+					throw ex;
+				}
+				LOGGER.warn("Could not download a range: ''{0}''. Retrying... Caused by: {1}", range, ex);
+			}
+		}
+	}
+
+	private void downloadRange(RemoteFile remoteFile, Range range, FileChannel channel, DownloadState state)
+			throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Range", "bytes=" + range.getPosition() + "-" + range.end);
+		if (remoteFile.getValidator() != null) {
+			headers.set("If-Range", remoteFile.getValidator());
+		}
+		HttpResponse response = this.httpClient.send(new HttpRequest(remoteFile.getUri(), "GET", headers));
+		this.responses.add(response);
+		try {
+			if (response.getStatus() != 206) {
+				state.invalidate();
+				throw new IOException(String.format("Could not download a range: '%s'. Error: %s", range, response));
+			}
+			Matcher matcher = response.getHeaders().getFirst("Content-Range").map(String::trim)
+					.map(CONTENT_RANGE::matcher).filter(Matcher::find).orElse(null);
+			if (matcher == null || Long.parseLong(matcher.group(3)) != remoteFile.getLength()) {
+				state.invalidate();
+				throw new IOException(String.format("Could not download a range: '%s'. Content-Range: '%s'"
+						+ " does not match the remote file", range, response.getHeaders().getFirst("Content-Range")
+						.orElse(null)));
+			}
+			//a server may answer with a different range, its bytes must not be written at the requested position
+			if (Long.parseLong(matcher.group(1)) != range.getPosition()
+					|| Long.parseLong(matcher.group(2)) != range.end) {
+				throw new IOException(String.format("Could not download a range: '%s'. Unexpected Content-Range: '%s'",
+						range, matcher.group()));
+			}
+			byte[] buffer = new byte[BUFFER_SIZE];
+			try (InputStream is = response.getInputStream()) {
+				int read;
+				while ((read = is.read(buffer)) != -1) {
+					long position = range.getPosition();
+					if (position + read > range.end + 1) {
+						state.invalidate();
+						throw new IOException(String.format("Server sent more bytes than requested for a range: '%s'",
+								range));
+					}
+					ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+					while (byteBuffer.hasRemaining()) {
+						position += channel.write(byteBuffer, position);
+					}
+					range.setPosition(position);
+					state.update(read, channel);
+				}
+			}
+			if (!range.isComplete()) {
+				throw new EOFException(String.format("Unexpected end of a range: '%s'", range));
+			}
+		}
+		finally {
+			this.responses.remove(response);
+			response.close();
+		}
+	}
+
+	private void closeResponses() {
+		for (HttpResponse response : this.responses) {
+			try {
+				response.close();
+			}
+			catch (Exception ex) {
+				//ignore
+			}
+		}
+		this.responses.clear();
+	}
+
+	private static String getValidator(HttpHeaders headers) {
+		String etag = headers.getFirst("ETag").orElse(null);
+		//weak validators must not be used with If-Range
+		if (etag != null && !etag.startsWith("W/")) {
+			return etag;
+		}
+		return headers.getFirst("Last-Modified").orElse(null);
+	}
+
+	private static List<Range> split(long length, int connections) {
+		int segments = (int) Math.max(1, Math.min(connections, length / MIN_SEGMENT_SIZE));
+		List<Range> ranges = new ArrayList<>(segments);
+		long size = length / segments;
+		for (int i = 0; i < segments; i++) {
+			long start = i * size;
+			long end = (i == segments - 1) ? length - 1 : start + size - 1;
+			ranges.add(new Range(start, end, start));
+		}
+		return ranges;
+	}
+
+	static final class RemoteFile {
+
+		private final URI uri;
+
+		private final long length;
+
+		private final String validator;
+
+		RemoteFile(URI uri, long length, String validator) {
+			this.uri = uri;
+			this.length = length;
+			this.validator = validator;
+		}
+
+		URI getUri() {
+			return this.uri;
+		}
+
+		long getLength() {
+			return this.length;
+		}
+
+		String getValidator() {
+			return this.validator;
+		}
+
+	}
+
+	private static final class Range {
+
+		private final long start;
+
+		private final long end;
+
+		private volatile long position;
+
+		Range(long start, long end, long position) {
+			this.start = start;
+			this.end = end;
+			this.position = position;
+		}
+
+		long getPosition() {
+			return this.position;
+		}
+
+		void setPosition(long position) {
+			this.position = position;
+		}
+
+		boolean isComplete() {
+			return this.position > this.end;
+		}
+
+		@Override
+		public String toString() {
+			return "bytes=" + this.start + "-" + this.end;
+		}
+
+	}
+
+	private static final class DownloadState {
+
+		private final RemoteFile remoteFile;
+
+		private final Path stateFile;
+
+		private final List<Range> ranges;
+
+		private long readBytes;
+
+		private long savedBytes;
+
+		private int lastPercent;
+
+		private boolean invalid;
+
+		DownloadState(RemoteFile remoteFile, Path stateFile, List<Range> ranges) {
+			this.remoteFile = remoteFile;
+			this.stateFile = stateFile;
+			this.ranges = ranges;
+			for (Range range : ranges) {
+				this.readBytes += range.getPosition() - range.start;
+			}
+			this.savedBytes = this.readBytes;
+			this.lastPercent = getPercent();
+		}
+
+		static DownloadState load(RemoteFile remoteFile, Path file, Path stateFile) {
+			if (remoteFile.getValidator() == null || !Files.exists(file) || !Files.exists(stateFile)) {
+				return null;
+			}
+			try {
+				Properties properties = new Properties();
+				try (InputStream is = Files.newInputStream(stateFile)) {
+					properties.load(is);
+				}
+				//e.g. another mirror serves the same file with its own ETag, If-Range would never match it
+				if (!remoteFile.getValidator().equals(properties.getProperty("validator"))
+						|| !Objects.equals(Long.toString(remoteFile.getLength()), properties.getProperty("length"))
+						|| Files.size(file) != remoteFile.getLength()) {
+					LOGGER.info("Partially downloaded ''{0}'' does not match URI: ''{1}'' and is discarded", file,
+							remoteFile.getUri());
+					return null;
+				}
+				List<Range> ranges = new ArrayList<>();
+				int count = Integer.parseInt(properties.getProperty("ranges"));
+				for (int i = 0; i < count; i++) {
+					String[] tokens = properties.getProperty("range." + i).split(",");
+					ranges.add(new Range(Long.parseLong(tokens[0]), Long.parseLong(tokens[1]),
+							Long.parseLong(tokens[2])));
+				}
+				return new DownloadState(remoteFile, stateFile, ranges);
+			}
+			catch (Exception ex) {
+				LOGGER.warn(ex, "Download state ''{0}'' could not be loaded", stateFile);
+				return null;
+			}
+		}
+
+		List<Range> getRanges() {
+			return this.ranges;
+		}
+
+		synchronized long getReadBytes() {
+			return this.readBytes;
+		}
+
+		synchronized boolean isInvalid() {
+			return this.invalid;
+		}
+
+		synchronized void invalidate() {
+			this.invalid = true;
+		}
+
+		synchronized void update(int read, FileChannel channel) throws IOException {
+			long totalBytes = this.remoteFile.getLength();
+			this.readBytes += read;
+			int percent = getPercent();
+			if (percent - this.lastPercent >= 10 || percent == 100) {
+				LOGGER.info("{0} / {1} {2}%", this.readBytes, totalBytes, percent);
+				this.lastPercent = percent;
+			}
+			if (this.readBytes - this.savedBytes >= SAVE_INTERVAL) {
+				save(channel);
+			}
+		}
+
+		synchronized void save(FileChannel channel) throws IOException {
+			//the recorded progress must never be ahead of the bytes that reached the disk
+			channel.force(false);
+			save();
+		}
+
+		synchronized void save() throws IOException {
+			if (this.invalid) {
+				Files.deleteIfExists(this.stateFile);
+				return;
+			}
+			Properties properties = new Properties();
+			properties.setProperty("uri", this.remoteFile.getUri().toString());
+			properties.setProperty("length", Long.toString(this.remoteFile.getLength()));
+			if (this.remoteFile.getValidator() != null) {
+				properties.setProperty("validator", this.remoteFile.getValidator());
+			}
+			properties.setProperty("ranges", Integer.toString(this.ranges.size()));
+			for (int i = 0; i < this.ranges.size(); i++) {
+				Range range = this.ranges.get(i);
+				properties.setProperty("range." + i, range.start + "," + range.end + "," + range.getPosition());
+			}
+			Path tempFile = this.stateFile.resolveSibling(this.stateFile.getFileName() + ".tmp");
+			try (OutputStream os = Files.newOutputStream(tempFile)) {
+				properties.store(os, null);
+			}
+			Files.move(tempFile, this.stateFile, StandardCopyOption.REPLACE_EXISTING);
+			this.savedBytes = this.readBytes;
+		}
+
+		private int getPercent() {
+			long totalBytes = this.remoteFile.getLength();
+			return (totalBytes > 0) ? (int) (this.readBytes * 100 / totalBytes) : 100;
+		}
+
+	}
+
+}
@@ -19,6 +19,7 @@ package com.github.nosan.embedded.cassandra;
 import java.io.Closeable;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -42,6 +43,8 @@ class RpcTransportParser implements Consumer<String>, Closeable {
 
 	private final CassandraDatabase database;
 
+	private final CompletableFuture<Void> parsed = new CompletableFuture<>();
+
 	private volatile Integer port;
 
 	private volatile InetAddress address;
@@ -55,6 +58,9 @@ class RpcTransportParser implements Consumer<String>, Closeable {
 	RpcTransportParser(CassandraDatabase database) {
 		this.database = database;
 		this.disabled = database.getVersion().getMajor() >= 4;
+		if (this.disabled) {
+			this.parsed.complete(null);
+		}
 		database.getStdOut().attach(this);
 		database.getStdErr().attach(this);
 	}
@@ -78,6 +84,9 @@ class RpcTransportParser implements Consumer<String>, Closeable {
 		else if (FAILED_TO_BIND.matcher(line).find()) {
 			this.failed = true;
 		}
+		if (this.failed || isParsed()) {
+			this.parsed.complete(null);
+		}
 	}
 
 	@Override
@@ -90,6 +99,10 @@ class RpcTransportParser implements Consumer<String>, Closeable {
 		return this.failed;
 	}
 
+	CompletableFuture<Void> onParsed() {
+		return this.parsed;
+	}
+
 	boolean isParsed() {
 		if (this.disabled) {
 			return true;
@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
@@ -33,11 +34,16 @@ class StartupParser implements Consumer<String>, Closeable {
 
 	private final CassandraDatabase database;
 
+	private final CompletableFuture<Void> completed = new CompletableFuture<>();
+
 	private volatile boolean complete;
 
 	StartupParser(CassandraDatabase database) {
 		this.database = database;
 		this.complete = !supports(database.getVersion());
+		if (this.complete) {
+			this.completed.complete(null);
+		}
 		database.getStdOut().attach(this);
 	}
 
@@ -45,6 +51,7 @@ class StartupParser implements Consumer<String>, Closeable {
 	public void accept(String line) {
 		if (STARTUP_COMPLETE.matcher(line).find()) {
 			this.complete = true;
+			this.completed.complete(null);
 		}
 	}
 
@@ -53,6 +60,10 @@ class StartupParser implements Consumer<String>, Closeable {
 		this.database.getStdOut().detach(this);
 	}
 
+	CompletableFuture<Void> onComplete() {
+		return this.completed;
+	}
+
 	boolean isComplete() {
 		return this.complete;
 	}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+final class TrashDirectory {
+
+	static final String TRASH_DIRECTORY = ".embedded-cassandra-trash";
+
+	private static final Logger LOGGER = Logger.get(TrashDirectory.class);
+
+	private static final long DRAIN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+	private static final ExecutorService EXECUTOR = createExecutor();
+
+	private static final Set<Path> SWEPT = ConcurrentHashMap.newKeySet();
+
+	private TrashDirectory() {
+	}
+
+	static void delete(Path directory) throws IOException {
+		if (!Files.exists(directory)) {
+			return;
+		}
+		Path parent = directory.toAbsolutePath().getParent();
+		if (parent == null) {
+			FileUtils.delete(directory);
+			return;
+		}
+		Path trash = Files.createDirectories(parent.resolve(TRASH_DIRECTORY));
+		if (SWEPT.add(trash)) {
+			//leftovers of a JVM which could not finish its deletions
+			sweep(trash);
+		}
+		Path target = trash.resolve(directory.getFileName() + "-" + UUID.randomUUID());
+		try {
+			Files.move(directory, target, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex) {
+			LOGGER.debug(ex, "''{0}'' could not be moved into ''{1}''", directory, trash);
+			FileUtils.delete(directory);
+			return;
+		}
+		submit(target);
+	}
+
+	private static void sweep(Path trash) {
+		try (Stream<Path> stream = Files.list(trash)) {
+			List<Path> paths = stream.collect(Collectors.toList());
+			for (Path path : paths) {
+				submit(path);
+			}
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Trash ''{0}'' could not be swept", trash);
+		}
+	}
+
+	private static void submit(Path path) {
+		try {
+			EXECUTOR.execute(() -> deleteSilently(path));
+		}
+		catch (RejectedExecutionException ex) {
+			//the JVM is shutting down
+			deleteSilently(path);
+		}
+	}
+
+	private static void deleteSilently(Path path) {
+		try {
+			FileUtils.delete(path);
+		}
+		catch (IOException ex) {
+			//another JVM could sweep the same trash
+			if (Files.exists(path)) {
+				LOGGER.warn(ex, "''{0}'' could not be deleted", path);
+			}
+		}
+	}
+
+	private static ExecutorService createExecutor() {
+		ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "cassandra-trash");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}, "cassandra-trash-sh"));
+		return executor;
+	}
+
+}
@@ -20,6 +20,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
@@ -77,6 +78,12 @@ class UnixCassandraDatabase extends AbstractCassandraDatabase {
 
 	void setExecutable(Path executable) throws IOException {
 		if (!Files.isExecutable(executable)) {
+			if (getLinkCount(executable) > 1) {
+				//a hard link shares permissions with the cached distribution, so a private copy is changed instead
+				Path copy = Files.createTempFile(executable.getParent(), executable.getFileName().toString(), "");
+				Files.copy(executable, copy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+				Files.move(copy, executable, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
 			Set<PosixFilePermission> permissions = new LinkedHashSet<>(Files.getPosixFilePermissions(executable));
 			permissions.add(PosixFilePermission.OWNER_EXECUTE);
 			permissions.add(PosixFilePermission.GROUP_EXECUTE);
@@ -85,6 +92,15 @@ class UnixCassandraDatabase extends AbstractCassandraDatabase {
 		}
 	}
 
+	private static int getLinkCount(Path file) {
+		try {
+			return ((Number) Files.getAttribute(file, "unix:nlink")).intValue();
+		}
+		catch (UnsupportedOperationException | IllegalArgumentException | IOException ex) {
+			return 1;
+		}
+	}
+
 	Process start(String name, ProcessBuilder processBuilder) throws IOException {
 		LOGGER.info("[{0}] {1}", name, String.join(" ", processBuilder.command()));
 		return new DefaultProcess(name, processBuilder.start());
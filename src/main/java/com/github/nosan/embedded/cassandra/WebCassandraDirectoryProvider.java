@@ -17,32 +17,47 @@
 package com.github.nosan.embedded.cassandra;
 
 import java.io.FileNotFoundException;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
@@ -73,10 +88,21 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 
 	private static final Logger LOGGER = Logger.get(WebCassandraDirectoryProvider.class);
 
+	private static final int PIPE_BUFFER_SIZE = 1024 * 1024;
+
+	private static final String STAGING_PREFIX = ".staging-";
+
+	private static final String EXCLUDES = "excludes";
+
+	private static final Set<PosixFilePermission> EXECUTE_PERMISSIONS = Collections.unmodifiableSet(EnumSet.of(
+			PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.OTHERS_EXECUTE));
+
 	private final HttpClient httpClient;
 
 	private final Path downloadDirectory;
 
+	private final DistributionCache cache = new DistributionCache();
+
 	/**
 	 * Creates a new {@link WebCassandraDirectoryProvider} with {@link JdkHttpClient} and {@code user.home} directory.
 	 */
@@ -121,16 +147,27 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 		Objects.requireNonNull(version, "Version must not be null");
 		Path downloadDirectory = this.downloadDirectory.resolve(".embedded-cassandra").resolve("cassandra")
 				.resolve(version.toString());
+		Files.createDirectories(downloadDirectory);
+		//a version directory is not evicted while it is validated or initialized
+		try (FileLockRegistry.Lock lock = DistributionCache.use(downloadDirectory)) {
+			return getDirectory(version, downloadDirectory);
+		}
+	}
 
-		Path successFile = downloadDirectory.resolve(".success");
+	private Path getDirectory(Version version, Path downloadDirectory) throws IOException {
+		Path successFile = downloadDirectory.resolve(DistributionCache.SUCCESS_FILE);
 		Path cassandraDirectory = downloadDirectory.resolve(String.format("apache-cassandra-%s", version));
 
-		if (Files.exists(successFile) && Files.exists(cassandraDirectory)) {
-			return cassandraDirectory;
+		Set<String> excludedDirectories = new TreeSet<>(getExcludedDirectories());
+		if (isInitialized(successFile, cassandraDirectory, excludedDirectories)) {
+			Set<String> damagedFiles = validate(cassandraDirectory);
+			if (damagedFiles != null && damagedFiles.isEmpty()) {
+				this.cache.hit(downloadDirectory);
+				return cassandraDirectory;
+			}
 		}
 		LOGGER.info("Cassandra directory: ''{0}'' is not found. Initializing...", cassandraDirectory);
-		Files.createDirectories(downloadDirectory);
-		Path lockFile = downloadDirectory.resolve(".lock");
+		Path lockFile = downloadDirectory.resolve(DistributionCache.LOCK_FILE);
 
 		try (FileLock fileLock = FileLock.of(lockFile)) {
 			LOGGER.info("Acquires a lock to the file ''{0}''...", lockFile);
@@ -139,23 +176,25 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 						+ " File lock could not be acquired for a file: '%s'", version, lockFile));
 			}
 
-			if (Files.exists(successFile) && Files.exists(cassandraDirectory)) {
-				return cassandraDirectory;
+			deleteStagingDirectories(downloadDirectory);
+			if (isInitialized(successFile, cassandraDirectory, excludedDirectories)) {
+				Set<String> damagedFiles = validate(cassandraDirectory);
+				if (damagedFiles != null && (damagedFiles.isEmpty()
+						|| repair(version, downloadDirectory, cassandraDirectory, damagedFiles))) {
+					this.cache.hit(downloadDirectory);
+					return cassandraDirectory;
+				}
 			}
+			this.cache.miss();
 
-			List<CassandraPackage> cassandraPackages = getCassandraPackages(version);
-			if (cassandraPackages.isEmpty()) {
-				throw new FileNotFoundException(String.format("Unable to provide Cassandra Directory"
-						+ " for a version: '%s'. No Packages!", version));
-			}
+			List<CassandraPackage> cassandraPackages = getPackages(version, downloadDirectory);
 			List<Exception> failures = new ArrayList<>();
 			for (CassandraPackage cassandraPackage : cassandraPackages) {
 				try {
-					downloadAndExtract(version, downloadDirectory, cassandraDirectory, cassandraPackage);
-					if (!Thread.currentThread().isInterrupted()) {
-						Files.write(successFile, Collections.singleton(ZonedDateTime.now().toString()));
-					}
+					downloadAndExtract(version, downloadDirectory, cassandraDirectory, cassandraPackage,
+							excludedDirectories);
 					LOGGER.info("Cassandra directory: ''{0}'' is initialized.", cassandraDirectory);
+					this.cache.evict(downloadDirectory, getMaxCacheSize());
 					return cassandraDirectory;
 				}
 				catch (Exception ex) {
@@ -173,6 +212,37 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 		}
 	}
 
+	/**
+	 * Gets the number of times an already initialized Cassandra directory has been returned by this provider.
+	 *
+	 * @return the number of cache hits
+	 * @since 4.0.7
+	 */
+	public long getCacheHits() {
+		return this.cache.getHits();
+	}
+
+	/**
+	 * Gets the number of times a Cassandra directory has been initialized by this provider.
+	 *
+	 * @return the number of cache misses
+	 * @since 4.0.7
+	 */
+	public long getCacheMisses() {
+		return this.cache.getMisses();
+	}
+
+	/**
+	 * Gets the number of Cassandra directories evicted by this provider.
+	 *
+	 * @return the number of evictions
+	 * @see #getMaxCacheSize()
+	 * @since 4.0.7
+	 */
+	public long getCacheEvictions() {
+		return this.cache.getEvictions();
+	}
+
 	/**
 	 * Gets Cassandra packages to download.
 	 * <p>Subclasses may override this method and return their packages to download.
@@ -191,6 +261,49 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 		return packages;
 	}
 
+	/**
+	 * Whether identical files of different Cassandra versions should be stored only once.
+	 * <p>If enabled, every extracted file is hashed and kept once by its content in a {@code .store} directory next
+	 * to the version directories, and the Cassandra directory is built from hard links into that store. If hard
+	 * links are not supported by the file system, files are kept as they are.
+	 * <p>Subclasses may override this method to enable file deduplication.
+	 *
+	 * @return {@code true} if files should be deduplicated, defaults to {@code false}
+	 * @since 4.0.7
+	 */
+	protected boolean isFileDeduplication() {
+		return false;
+	}
+
+	/**
+	 * Whether an initialized Cassandra directory should be validated before it is returned.
+	 * <p>If enabled, files of the Cassandra directory are compared with the manifest written when the directory was
+	 * initialized. Only sizes and last modified times are checked, and only files whose last modified time has
+	 * changed are hashed again (in parallel). Missing or modified files are extracted again from the archive, and if
+	 * that is not possible, the whole directory is initialized again.
+	 * <p>Subclasses may override this method to disable validation.
+	 *
+	 * @return {@code true} if the Cassandra directory should be validated, defaults to {@code true}
+	 * @since 4.0.7
+	 */
+	protected boolean isDirectoryValidation() {
+		return true;
+	}
+
+	/**
+	 * Gets the maximum size in bytes of all Cassandra directories in the download directory.
+	 * <p>Once a new Cassandra directory is initialized and the total size exceeds this quota, the least recently
+	 * used versions are deleted until the total size fits the quota. The currently provided version and versions
+	 * that are locked by another process (e.g. being initialized) are never deleted.
+	 * <p>Subclasses may override this method to limit the size of the download directory.
+	 *
+	 * @return the maximum size in bytes, defaults to {@link Long#MAX_VALUE} (unlimited)
+	 * @since 4.0.7
+	 */
+	protected long getMaxCacheSize() {
+		return Long.MAX_VALUE;
+	}
+
 	/**
 	 * Acquires an exclusive lock on the file.
 	 * <p>Subclasses may override this method to change {@code tryLock} timeout.
@@ -203,6 +316,96 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 		return fileLock.tryLock(5, TimeUnit.MINUTES);
 	}
 
+	/**
+	 * Whether packages should be ranked by their mirrors before downloading.
+	 * <p>If enabled, all package URIs are probed at the same time with a small ranged request, probes that are much
+	 * slower than the first successful one are cancelled, and the packages are tried in the order of the measured
+	 * time to first byte and throughput. The results are persisted per host in {@code mirrors.properties} next to
+	 * the version directories and are taken into account on the next run.
+	 * <p>Subclasses may override this method to enable mirror racing.
+	 *
+	 * @return {@code true} if packages should be ranked by their mirrors, defaults to {@code false}
+	 * @since 4.0.7
+	 */
+	protected boolean isMirrorRacing() {
+		return false;
+	}
+
+	/**
+	 * Gets the number of parallel connections used to download an archive.
+	 * <p>If the number is greater than one and the server supports byte ranges, the archive is split into ranges
+	 * that are downloaded in parallel, otherwise the archive is downloaded through a single connection.
+	 * Only archives downloaded in ranges can be resumed after a failure.
+	 * <p>Subclasses may override this method to enable segmented downloading.
+	 *
+	 * @return the number of connections, defaults to {@code 1}
+	 * @since 4.0.7
+	 */
+	protected int getDownloadConnections() {
+		return 1;
+	}
+
+	/**
+	 * Whether the archive should be extracted while it is being downloaded.
+	 * <p>If enabled, the archive is downloaded through a single connection by
+	 * {@link #download(HttpClient, Version, URI, OutputStream)}, its checksum is computed on the fly, and the
+	 * downloaded bytes are passed through a bounded buffer to a second thread which extracts them by
+	 * {@link #createArchiveInputStream(InputStream)}. The archive is never written to disk, and the extracted
+	 * directory is used only if the computed checksum matches the expected one. Neither ranges nor resuming are
+	 * supported in this mode, and {@link #extract(Path, Path)} is not used.
+	 * <p>Subclasses may override this method to enable streaming extraction.
+	 *
+	 * @return {@code true} if the archive should be extracted while it is being downloaded, defaults to {@code false}
+	 * @since 4.0.7
+	 */
+	protected boolean isStreamingExtraction() {
+		return false;
+	}
+
+	/**
+	 * Downloads the archive file from the provided URI into the provided file.
+	 * <p>If {@link #getDownloadConnections()} is greater than one and the server supports byte ranges, the archive is
+	 * downloaded in parallel ranges, and the progress is recorded in a sidecar file next to the provided file. If the
+	 * provided file contains a partially downloaded archive from a previous attempt and the remote file has the same
+	 * validator ({@code ETag} or {@code Last-Modified}) and length, only missing bytes are downloaded, otherwise the
+	 * partially downloaded archive is discarded. The same applies to a single connection as long as
+	 * {@link #download(HttpClient, Version, URI, OutputStream)} is not overridden, the archive is then downloaded as
+	 * one range. In any other case, the archive is downloaded by
+	 * {@link #download(HttpClient, Version, URI, OutputStream)} and cannot be resumed.
+	 *
+	 * @param httpClient Http client to use
+	 * @param version Cassandra version
+	 * @param uri the URI to the file to download
+	 * @param file the file to write to
+	 * @throws IOException an I/O error occurs or if it is not possible to download.
+	 * @since 4.0.7
+	 */
+	protected void download(HttpClient httpClient, Version version, URI uri, Path file) throws IOException {
+		int connections = Math.max(1, getDownloadConnections());
+		Path stateFile = getStateFile(file);
+		if (connections > 1 || !isStreamDownloadOverridden()) {
+			RangeDownloader downloader = new RangeDownloader(httpClient);
+			RangeDownloader.RemoteFile remoteFile = downloader.probe(uri);
+			if (remoteFile != null) {
+				if (connections > 1) {
+					LOGGER.info("Downloading Apache Cassandra: ''{0}'' from URI: ''{1}'' using {2} connections."
+							+ " It takes a while...", version, remoteFile.getUri(), connections);
+				}
+				else {
+					LOGGER.info("Downloading Apache Cassandra: ''{0}'' from URI: ''{1}''."
+							+ " It takes a while...", version, remoteFile.getUri());
+				}
+				downloader.download(remoteFile, file, stateFile, connections);
+				return;
+			}
+			LOGGER.info("Byte ranges are not supported by URI: ''{0}''. Download cannot be resumed.", uri);
+		}
+		Files.deleteIfExists(stateFile);
+		try (OutputStream os = Files.newOutputStream(file)) {
+			download(httpClient, version, uri, os);
+		}
+	}
+
 	/**
 	 * Downloads the archive file from the provided URI and writes it into the provided output stream.
 	 * <p>Subclasses may override this method and implement their logic for downloading.
@@ -244,9 +447,44 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 		}
 	}
 
+	/**
+	 * Gets the number of threads used to extract an archive.
+	 * <p>Entries are always decompressed by the calling thread. If the number is greater than one, small files are
+	 * read into pooled buffers and written by a bounded pool of worker threads, while large files and directories
+	 * are still written by the calling thread. In both cases POSIX permissions of the entries are preserved (the
+	 * owner always keeps read and write access).
+	 * <p>Subclasses may override this method to change the number of threads.
+	 *
+	 * @return the number of threads, defaults to the number of available processors, but not more than {@code 4}
+	 * @since 4.0.7
+	 */
+	protected int getExtractThreads() {
+		return Math.min(4, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Gets the directories that should not be extracted from the archive.
+	 * <p>Directories are relative to Cassandra home, e.g. {@code doc} or {@code pylib/cqlshlib/test}. Entries of
+	 * excluded directories are skipped without being written to disk. The excluded directories are recorded
+	 * along with the extracted Cassandra directory, and a directory extracted with excludes that are not excluded
+	 * by this provider is extracted again.
+	 * <p>Subclasses may override this method to change the excluded directories.
+	 *
+	 * @return the excluded directories, defaults to {@code javadoc}, {@code doc} and {@code licenses}
+	 * @since 4.0.7
+	 */
+	protected Set<String> getExcludedDirectories() {
+		return new LinkedHashSet<>(Arrays.asList("javadoc", "doc", "licenses"));
+	}
+
 	/**
 	 * Extracts the given archive file into the given destination directory.
 	 * <p>Subclasses may override this method and implement their logic for extraction.
+	 * <p>This method is not used if {@link #isStreamingExtraction() streaming extraction} is enabled, because the
+	 * archive is never written to disk, and it is not used when damaged files of an already extracted directory are
+	 * repaired, because only those files are extracted. The archive is then read through
+	 * {@link #createArchiveInputStream(InputStream)} and {@link #createArchiveInputStream(Path)} respectively,
+	 * which can be overridden instead.
 	 *
 	 * @param archiveFile the archive file to extract
 	 * @param destination the directory to which to extract the files (already created)
@@ -254,20 +492,7 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 	 */
 	protected void extract(Path archiveFile, Path destination) throws IOException {
 		try (ArchiveInputStream archiveInputStream = createArchiveInputStream(archiveFile)) {
-			ArchiveEntry entry;
-			while ((entry = archiveInputStream.getNextEntry()) != null) {
-				if (entry.isDirectory()) {
-					Files.createDirectories(destination.resolve(entry.getName()).normalize()).toAbsolutePath();
-				}
-				else {
-					Path file = destination.resolve(entry.getName()).normalize().toAbsolutePath();
-					Path parent = file.getParent();
-					if (!Files.exists(parent)) {
-						Files.createDirectories(parent);
-					}
-					Files.copy(archiveInputStream, file, StandardCopyOption.REPLACE_EXISTING);
-				}
-			}
+			extract(archiveInputStream, destination);
 		}
 	}
 
@@ -279,22 +504,165 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 	 * @throws IOException an I/O error occurs
 	 */
 	protected ArchiveInputStream createArchiveInputStream(Path archiveFile) throws IOException {
-		return new TarArchiveInputStream(new GzipCompressorInputStream(Files.newInputStream(archiveFile)));
+		return createArchiveInputStream(Files.newInputStream(archiveFile));
+	}
+
+	/**
+	 * Creates the ArchiveInputStream for a given archive stream.
+	 *
+	 * @param inputStream the archive stream
+	 * @return the input stream to use
+	 * @throws IOException an I/O error occurs
+	 * @since 4.0.7
+	 */
+	protected ArchiveInputStream createArchiveInputStream(InputStream inputStream) throws IOException {
+		return new TarArchiveInputStream(new GzipCompressorInputStream(inputStream));
+	}
+
+	private List<CassandraPackage> getPackages(Version version, Path downloadDirectory) throws IOException {
+		List<CassandraPackage> cassandraPackages = getCassandraPackages(version);
+		if (cassandraPackages.isEmpty()) {
+			throw new FileNotFoundException(String.format("Unable to provide Cassandra Directory"
+					+ " for a version: '%s'. No Packages!", version));
+		}
+		if (isMirrorRacing() && cassandraPackages.size() > 1) {
+			Path statsFile = downloadDirectory.resolveSibling("mirrors.properties");
+			return new MirrorSelector(this.httpClient, statsFile).rank(cassandraPackages);
+		}
+		return cassandraPackages;
+	}
+
+	private Set<String> validate(Path cassandraDirectory) {
+		if (!isDirectoryValidation()) {
+			return Collections.emptySet();
+		}
+		try {
+			Path manifestFile = cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE);
+			DirectoryManifest manifest = DirectoryManifest.load(manifestFile);
+			if (manifest == null) {
+				return Collections.emptySet();
+			}
+			Set<String> damagedFiles = manifest.validate(cassandraDirectory);
+			if (!damagedFiles.isEmpty()) {
+				LOGGER.warn("Cassandra directory: ''{0}'' is damaged. Missing or modified files: {1}",
+						cassandraDirectory, damagedFiles);
+			}
+			else if (manifest.isRefreshed()) {
+				save(manifest, manifestFile);
+			}
+			return damagedFiles;
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Cassandra directory: ''{0}'' could not be validated", cassandraDirectory);
+			return null;
+		}
+	}
+
+	private static void save(DirectoryManifest manifest, Path manifestFile) {
+		//the lock is not awaited, if it is held, the manifest is refreshed on the next validation instead
+		Path lockFile = manifestFile.resolveSibling(DistributionCache.LOCK_FILE);
+		try (FileLock fileLock = FileLock.of(lockFile)) {
+			if (fileLock.tryLock(0, TimeUnit.MILLISECONDS)) {
+				manifest.save(manifestFile);
+			}
+		}
+		catch (IOException ex) {
+			LOGGER.debug(ex, "Manifest ''{0}'' could not be refreshed", manifestFile);
+		}
+	}
+
+	private boolean repair(Version version, Path downloadDirectory, Path cassandraDirectory,
+			Set<String> damagedFiles) {
+		try {
+			for (CassandraPackage cassandraPackage : getPackages(version, downloadDirectory)) {
+				try {
+					repair(version, downloadDirectory, cassandraDirectory, cassandraPackage, damagedFiles);
+					LOGGER.info("Cassandra directory: ''{0}'' is repaired.", cassandraDirectory);
+					return true;
+				}
+				catch (Exception ex) {
+					LOGGER.warn(ex, "Cassandra directory: ''{0}'' could not be repaired from ''{1}''",
+							cassandraDirectory, cassandraPackage.getUri());
+				}
+			}
+		}
+		catch (IOException ex) {
+			LOGGER.warn(ex, "Cassandra directory: ''{0}'' could not be repaired", cassandraDirectory);
+		}
+		return false;
+	}
+
+	private void repair(Version version, Path downloadDirectory, Path cassandraDirectory,
+			CassandraPackage cassandraPackage, Set<String> damagedFiles)
+			throws IOException, NoSuchAlgorithmException {
+		Path manifestFile = cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE);
+		DirectoryManifest manifest = DirectoryManifest.load(manifestFile);
+		if (manifest == null) {
+			throw new FileNotFoundException(String.format("Manifest '%s' is not found", manifestFile));
+		}
+		Path downloadFile = downloadDirectory.resolve(cassandraPackage.getName() + ".part");
+		download(this.httpClient, version, cassandraPackage.getUri(), downloadFile);
+		try {
+			verifyChecksums(this.httpClient, downloadFile, cassandraPackage);
+			Path extractDirectory = Files.createTempDirectory(downloadDirectory, STAGING_PREFIX);
+			try {
+				LOGGER.info("Extracting {0} files...", damagedFiles.size());
+				try (ArchiveInputStream archiveInputStream = createArchiveInputStream(downloadFile)) {
+					new ArchiveExtractor(getExtractThreads(), Collections.emptySet(), damagedFiles)
+							.extract(archiveInputStream, extractDirectory);
+				}
+				DeduplicatingStore store = new DeduplicatingStore(
+						downloadDirectory.resolveSibling(DeduplicatingStore.STORE_DIRECTORY));
+				for (String damagedFile : damagedFiles) {
+					Path source = findExtractedFile(extractDirectory, damagedFile);
+					Path target = cassandraDirectory.resolve(damagedFile);
+					Files.createDirectories(target.getParent());
+					Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					//a file modified in place could have been linked into the store
+					store.remove(manifest.getHash(damagedFile));
+				}
+				manifest.update(cassandraDirectory, damagedFiles);
+				manifest.save(manifestFile);
+			}
+			finally {
+				deleteSilently(extractDirectory);
+			}
+		}
+		finally {
+			deleteSilently(downloadFile);
+			deleteSilently(getStateFile(downloadFile));
+		}
+	}
+
+	private static Path findExtractedFile(Path extractDirectory, String name) throws IOException {
+		Path file = extractDirectory.resolve(name);
+		if (Files.isRegularFile(file)) {
+			return file;
+		}
+		try (Stream<Path> stream = Files.list(extractDirectory)) {
+			return stream.map(directory -> directory.resolve(name)).filter(Files::isRegularFile).findFirst()
+					.orElseThrow(() -> new FileNotFoundException(
+							String.format("File '%s' is not found in the archive", name)));
+		}
 	}
 
 	private void downloadAndExtract(Version version, Path downloadDirectory, Path cassandraDirectory,
-			CassandraPackage cassandraPackage) throws IOException, NoSuchAlgorithmException {
-		Path downloadFile = Files.createTempFile(downloadDirectory, "", "-" + cassandraPackage.getName());
-		try (OutputStream outputStream = Files.newOutputStream(downloadFile, StandardOpenOption.WRITE)) {
-			download(this.httpClient, version, cassandraPackage.getUri(), outputStream);
+			CassandraPackage cassandraPackage, Set<String> excludedDirectories)
+			throws IOException, NoSuchAlgorithmException {
+		if (isStreamingExtraction()) {
+			downloadAndExtractStreaming(version, downloadDirectory, cassandraDirectory, cassandraPackage,
+					excludedDirectories);
+			return;
+		}
+		Path downloadFile = downloadDirectory.resolve(cassandraPackage.getName() + ".part");
+		download(this.httpClient, version, cassandraPackage.getUri(), downloadFile);
+		try {
 			verifyChecksums(this.httpClient, downloadFile, cassandraPackage);
-			Path extractDirectory = Files.createTempDirectory(downloadDirectory,
-					String.format("apache-cassandra-%s-", version));
+			Path extractDirectory = Files.createTempDirectory(downloadDirectory, STAGING_PREFIX);
 			try {
 				LOGGER.info("Extracting...");
 				extract(downloadFile, extractDirectory);
-				Path cassandraHome = findCassandraHome(extractDirectory);
-				FileUtils.copy(cassandraHome, cassandraDirectory, StandardCopyOption.REPLACE_EXISTING);
+				publish(findCassandraHome(extractDirectory), cassandraDirectory, excludedDirectories);
 			}
 			finally {
 				deleteSilently(extractDirectory);
@@ -302,40 +670,135 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 		}
 		finally {
 			deleteSilently(downloadFile);
+			deleteSilently(getStateFile(downloadFile));
+		}
+	}
+
+	private void downloadAndExtractStreaming(Version version, Path downloadDirectory, Path cassandraDirectory,
+			CassandraPackage cassandraPackage, Set<String> excludedDirectories)
+			throws IOException, NoSuchAlgorithmException {
+		Checksum checksum = getChecksum(this.httpClient, cassandraPackage);
+		MessageDigest digest = (checksum != null) ? MessageDigest.getInstance(checksum.getAlgorithm()) : null;
+		Path extractDirectory = Files.createTempDirectory(downloadDirectory, STAGING_PREFIX);
+		try {
+			LOGGER.info("Extracting while downloading...");
+			downloadAndExtract(version, cassandraPackage.getUri(), extractDirectory, digest);
+			if (checksum != null) {
+				LOGGER.info("Verifying checksum...");
+				verify(checksum, toHex(digest.digest()), cassandraPackage);
+			}
+			publish(findCassandraHome(extractDirectory), cassandraDirectory, excludedDirectories);
+		}
+		finally {
+			deleteSilently(extractDirectory);
+		}
+	}
+
+	private void downloadAndExtract(Version version, URI uri, Path destination, MessageDigest digest)
+			throws IOException {
+		PipedInputStream inputStream = new PipedInputStream(PIPE_BUFFER_SIZE);
+		AtomicReference<Throwable> extractFailure = new AtomicReference<>();
+		Thread extractor = new Thread(() -> {
+			try (InputStream is = inputStream) {
+				extract(createArchiveInputStream(is), destination);
+				//drain trailing bytes, so the downloading thread is not blocked by the full buffer
+				byte[] buffer = new byte[8192];
+				while (is.read(buffer) != -1) {
+					//ignore
+				}
+			}
+			catch (Throwable ex) {
+				extractFailure.set(ex);
+			}
+		}, "cassandra-extract");
+		extractor.setDaemon(true);
+		try (OutputStream os = createPipedOutputStream(inputStream, digest)) {
+			extractor.start();
+			download(this.httpClient, version, uri, os);
+		}
+		catch (IOException | RuntimeException ex) {
+			join(extractor);
+			Throwable failure = extractFailure.get();
+			if (failure != null) {
+				ex.addSuppressed(failure);
+			}
+			throw ex;
+		}
+		join(extractor);
+		Throwable failure = extractFailure.get();
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		}
+		if (failure != null) {
+			throw new IOException("Could not extract an archive", failure);
+		}
+	}
+
+	private static OutputStream createPipedOutputStream(PipedInputStream inputStream, MessageDigest digest)
+			throws IOException {
+		OutputStream os = new FilterOutputStream(new PipedOutputStream(inputStream)) {
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				this.out.write(b, off, len);
+				//wakes up the reader immediately instead of waiting for its poll interval
+				this.out.flush();
+			}
+
+		};
+		return (digest != null) ? new DigestOutputStream(os, digest) : os;
+	}
+
+	private static void join(Thread thread) throws IOException {
+		try {
+			thread.join();
+		}
+		catch (InterruptedException ex) {
+			thread.interrupt();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for an archive to be extracted");
 		}
 	}
 
 	private void verifyChecksums(HttpClient httpClient, Path archiveFile, CassandraPackage cassandraPackage)
 			throws IOException, NoSuchAlgorithmException {
 		LOGGER.info("Verifying checksum...");
+		Checksum checksum = getChecksum(httpClient, cassandraPackage);
+		if (checksum != null) {
+			verify(checksum, FileUtils.checksum(archiveFile, checksum.getAlgorithm()), cassandraPackage);
+		}
+	}
+
+	private Checksum getChecksum(HttpClient httpClient, CassandraPackage cassandraPackage) throws IOException {
 		Map<String, URI> checksums = cassandraPackage.getChecksums();
 		if (checksums.isEmpty()) {
 			LOGGER.warn("No checksum defined for ''{0}'', skipping verification.", cassandraPackage.getName());
-			return;
+			return null;
 		}
 		for (Map.Entry<String, URI> checksum : checksums.entrySet()) {
 			String algo = checksum.getKey();
 			URI uri = checksum.getValue();
 			try (HttpResponse response = httpClient.send(new HttpRequest(uri))) {
 				if (response.getStatus() == 200) {
-					String expected;
 					try (InputStream stream = response.getInputStream()) {
-						expected = StreamUtils.toString(stream, Charset.defaultCharset()).trim();
-					}
-					String[] tokens = expected.split("\\s+");
-					String actual = FileUtils.checksum(archiveFile, algo);
-					if (tokens.length == 2) {
-						verify(actual + " " + cassandraPackage.getName(), tokens[0] + " " + tokens[1]);
+						return new Checksum(algo, StreamUtils.toString(stream, Charset.defaultCharset()).trim());
 					}
-					else {
-						verify(actual, tokens[0]);
-					}
-					LOGGER.info("Checksums are identical");
-					return;
 				}
 			}
 		}
 		LOGGER.warn("No checksum downloaded for ''{0}'', skipping verification.", cassandraPackage.getName());
+		return null;
+	}
+
+	private void verify(Checksum checksum, String actual, CassandraPackage cassandraPackage) {
+		String[] tokens = checksum.getValue().split("\\s+");
+		if (tokens.length == 2) {
+			verify(actual + " " + cassandraPackage.getName(), tokens[0] + " " + tokens[1]);
+		}
+		else {
+			verify(actual, tokens[0]);
+		}
+		LOGGER.info("Checksums are identical");
 	}
 
 	private void verify(String actual, String expected) {
@@ -345,6 +808,109 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 		}
 	}
 
+	private void publish(Path cassandraHome, Path cassandraDirectory, Set<String> excludedDirectories)
+			throws IOException {
+		Path successFile = cassandraDirectory.resolveSibling(DistributionCache.SUCCESS_FILE);
+		//files of the cache can be hard-linked into working directories, so they are never changed afterwards
+		setExecutable(cassandraHome.resolve("bin"));
+		setExecutable(cassandraHome.resolve("tools").resolve("bin"));
+		if (isFileDeduplication()) {
+			Path storeDirectory = cassandraDirectory.getParent().resolveSibling(DeduplicatingStore.STORE_DIRECTORY);
+			new DeduplicatingStore(storeDirectory).deduplicate(cassandraHome);
+		}
+		Path manifestFile = cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE);
+		Files.deleteIfExists(successFile);
+		Files.deleteIfExists(manifestFile);
+		if (Files.exists(cassandraDirectory)) {
+			//leftovers of an unsuccessful attempt, e.g. an interrupted copy
+			FileUtils.delete(cassandraDirectory);
+		}
+		try {
+			Files.move(cassandraHome, cassandraDirectory, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex) {
+			LOGGER.warn("''{0}'' could not be moved to ''{1}''. Copying...", cassandraHome, cassandraDirectory);
+			FileUtils.copy(cassandraHome, cassandraDirectory, StandardCopyOption.REPLACE_EXISTING);
+		}
+		if (!Thread.currentThread().isInterrupted()) {
+			DirectoryManifest manifest = DirectoryManifest.create(cassandraDirectory);
+			manifest.save(manifestFile);
+			Path tempFile = Files.createTempFile(successFile.getParent(), STAGING_PREFIX, ".success");
+			try {
+				Properties properties = new Properties();
+				properties.setProperty(EXCLUDES, String.join(",", excludedDirectories));
+				properties.setProperty(DistributionCache.SIZE, Long.toString(manifest.getSize()));
+				try (OutputStream os = Files.newOutputStream(tempFile)) {
+					properties.store(os, ZonedDateTime.now().toString());
+				}
+				Files.move(tempFile, successFile, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+	}
+
+	private static void setExecutable(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)
+				|| !Files.getFileStore(directory).supportsFileAttributeView(PosixFileAttributeView.class)) {
+			return;
+		}
+		try (Stream<Path> stream = Files.list(directory)) {
+			for (Path file : stream.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				String name = file.getFileName().toString().toLowerCase(Locale.ENGLISH);
+				if (!name.endsWith(".bat") && !name.endsWith(".ps1")) {
+					Set<PosixFilePermission> permissions = EnumSet.copyOf(Files.getPosixFilePermissions(file));
+					if (permissions.addAll(EXECUTE_PERMISSIONS)) {
+						Files.setPosixFilePermissions(file, permissions);
+					}
+				}
+			}
+		}
+	}
+
+	private static void deleteStagingDirectories(Path downloadDirectory) throws IOException {
+		try (Stream<Path> stream = Files.list(downloadDirectory)) {
+			stream.filter(path -> path.getFileName().toString().startsWith(STAGING_PREFIX))
+					.forEach(WebCassandraDirectoryProvider::deleteSilently);
+		}
+	}
+
+	private void extract(ArchiveInputStream archiveInputStream, Path destination) throws IOException {
+		new ArchiveExtractor(getExtractThreads(), getExcludedDirectories()).extract(archiveInputStream,
+				destination);
+	}
+
+	private static boolean isInitialized(Path successFile, Path cassandraDirectory,
+			Set<String> excludedDirectories) {
+		if (!Files.exists(successFile) || !Files.exists(cassandraDirectory)) {
+			return false;
+		}
+		Set<String> excluded = new TreeSet<>();
+		//markers without excludes were written for fully extracted archives
+		if (Files.isRegularFile(successFile)) {
+			try (InputStream is = Files.newInputStream(successFile)) {
+				Properties properties = new Properties();
+				properties.load(is);
+				for (String exclude : properties.getProperty(EXCLUDES, "").split(",")) {
+					if (StringUtils.hasText(exclude)) {
+						excluded.add(exclude.trim());
+					}
+				}
+			}
+			catch (IOException ex) {
+				LOGGER.warn(ex, "Could not read ''{0}''", successFile);
+				return false;
+			}
+		}
+		if (!excludedDirectories.containsAll(excluded)) {
+			excluded.removeAll(excludedDirectories);
+			LOGGER.info("Cassandra directory: ''{0}'' was initialized without {1}", cassandraDirectory, excluded);
+			return false;
+		}
+		return true;
+	}
+
 	private Path findCassandraHome(Path directory) throws IOException {
 		try (Stream<Path> stream = Files.find(directory, 5, this::isCassandraHome)) {
 			return stream.findFirst().orElseThrow(() -> new IllegalStateException(
@@ -369,6 +935,33 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 		return new CassandraPackage(name, URI.create(uri), checksums);
 	}
 
+	private static String toHex(byte[] data) {
+		StringBuilder hex = new StringBuilder(data.length * 2);
+		for (byte b : data) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static Path getStateFile(Path downloadFile) {
+		return downloadFile.resolveSibling(downloadFile.getFileName() + ".state");
+	}
+
+	private boolean isStreamDownloadOverridden() {
+		//an overridden download must be honoured, even though it cannot be resumed
+		for (Class<?> type = getClass(); type != WebCassandraDirectoryProvider.class; type = type.getSuperclass()) {
+			try {
+				type.getDeclaredMethod("download", HttpClient.class, Version.class, URI.class, OutputStream.class);
+				return true;
+			}
+			catch (NoSuchMethodException ex) {
+				//continue with a superclass
+			}
+		}
+		return false;
+	}
+
 	private static void deleteSilently(Path path) {
 		try {
 			FileUtils.delete(path);
@@ -440,4 +1033,25 @@ public class WebCassandraDirectoryProvider implements CassandraDirectoryProvider
 
 	}
 
+	private static final class Checksum {
+
+		private final String algorithm;
+
+		private final String value;
+
+		Checksum(String algorithm, String value) {
+			this.algorithm = algorithm;
+			this.value = value;
+		}
+
+		String getAlgorithm() {
+			return this.algorithm;
+		}
+
+		String getValue() {
+			return this.value;
+		}
+
+	}
+
 }
@@ -27,6 +27,8 @@ import com.github.nosan.embedded.cassandra.commons.FileUtils;
  *
  * @author Dmytro Nosan
  * @see #deleteAll()
+ * @see #deleteAll(int)
+ * @see #deleteAllAsync()
  * @see #deleteOnly(String...)
  * @see #doNothing()
  * @since 4.0.0
@@ -43,6 +45,35 @@ public interface WorkingDirectoryDestroyer {
 		return (workingDirectory, version) -> FileUtils.delete(workingDirectory);
 	}
 
+	/**
+	 * Completely deletes the working directory using the given number of threads.
+	 *
+	 * @param parallelism the number of threads used to delete files
+	 * @return a new working directory destroyer
+	 * @see FileUtils#delete(Path, int)
+	 * @since 4.0.7
+	 */
+	static WorkingDirectoryDestroyer deleteAll(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be greater than 0");
+		}
+		return (workingDirectory, version) -> FileUtils.delete(workingDirectory, parallelism);
+	}
+
+	/**
+	 * Completely deletes the working directory in the background.
+	 * <p>The working directory is atomically moved into a <b>.embedded-cassandra-trash</b> directory next to it, and
+	 * its files are deleted by a daemon thread, so the caller does not wait for them. Pending deletions are finished
+	 * when the JVM exits, and leftovers of a JVM that could not finish them are deleted on the next use of the same
+	 * trash directory. If the working directory cannot be moved, it is deleted in the calling thread.
+	 *
+	 * @return a new working directory destroyer
+	 * @since 4.0.7
+	 */
+	static WorkingDirectoryDestroyer deleteAllAsync() {
+		return (workingDirectory, version) -> TrashDirectory.delete(workingDirectory);
+	}
+
 	/**
 	 * Deletes the provided paths in the working directory.
 	 *
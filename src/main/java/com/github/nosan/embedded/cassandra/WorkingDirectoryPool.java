@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+
+/**
+ * A pool of prepared working directories, that can be shared by {@link Cassandra} instances with the same version,
+ * configuration, system properties, environment variables and JVM options. {@link WorkingDirectoryCustomizer
+ * Customizers} are not compared, they are applied on every start.
+ * <p>A working directory is leased when a {@link Cassandra} instance is started, initialized only once, and given
+ * back to the pool when the instance is stopped. Only <b>data, commitlog, saved_caches and logs</b> directories are
+ * deleted when a working directory is leased and when it is given back, so the next instance skips almost all
+ * initialization, even if the previous one was never stopped, e.g. its JVM crashed.
+ * <p>Working directories are leased with a file lock, so the same pool directory can be used by several JVMs.
+ *
+ * @author Dmytro Nosan
+ * @see CassandraBuilder#workingDirectoryPool(WorkingDirectoryPool)
+ * @since 4.0.7
+ */
+public final class WorkingDirectoryPool {
+
+	private static final List<String> RESET_DIRECTORIES = Collections.unmodifiableList(
+			Arrays.asList("data", "commitlog", "saved_caches", "logs"));
+
+	private final Path directory;
+
+	/**
+	 * Creates a new {@link WorkingDirectoryPool}.
+	 *
+	 * @param directory the directory where working directories are kept
+	 */
+	public WorkingDirectoryPool(Path directory) {
+		Objects.requireNonNull(directory, "Directory must not be null");
+		this.directory = directory.normalize().toAbsolutePath();
+	}
+
+	/**
+	 * Gets the directory where working directories are kept.
+	 *
+	 * @return the directory, never {@code null}
+	 */
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Deletes all working directories that are not leased at the moment.
+	 *
+	 * @throws IOException an I/O error occurs
+	 */
+	public void clear() throws IOException {
+		if (!Files.isDirectory(this.directory)) {
+			return;
+		}
+		for (Path keyDirectory : list(this.directory)) {
+			for (Path workingDirectory : list(keyDirectory)) {
+				Lease lease = new Lease(workingDirectory);
+				if (lease.acquire()) {
+					try {
+						FileUtils.delete(workingDirectory);
+						Files.deleteIfExists(lease.preparedFile);
+					}
+					finally {
+						lease.unlock();
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "WorkingDirectoryPool{" + "directory=" + this.directory + '}';
+	}
+
+	Path getDirectory(String key) {
+		return this.directory.resolve(key);
+	}
+
+	Lease lease(String key) throws IOException {
+		Path keyDirectory = Files.createDirectories(this.directory.resolve(key));
+		for (Path workingDirectory : list(keyDirectory)) {
+			Lease lease = new Lease(workingDirectory);
+			if (lease.acquire()) {
+				try {
+					//a JVM that crashed while holding the lease has never given the working directory back
+					lease.reset();
+				}
+				catch (IOException ex) {
+					lease.unlock();
+					throw ex;
+				}
+				return lease;
+			}
+		}
+		Lease lease = new Lease(Files.createTempDirectory(keyDirectory, ""));
+		if (!lease.acquire()) {
+			throw new IOException(String.format("Working directory '%s' could not be leased", lease.directory));
+		}
+		return lease;
+	}
+
+	//the key must be the same in every JVM, thus it is computed from values and not from their hash codes
+	static String getKey(Version version, Object... values) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+		for (Object value : values) {
+			digest.update(toString(value).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		StringBuilder key = new StringBuilder(version.toString()).append('-');
+		for (byte b : digest.digest()) {
+			key.append(String.format("%02x", b));
+		}
+		return key.toString();
+	}
+
+	private static String toString(Object value) {
+		if (value instanceof Map) {
+			Map<String, String> entries = new TreeMap<>();
+			((Map<?, ?>) value).forEach((name, element) -> entries.put(toString(name), toString(element)));
+			return entries.toString();
+		}
+		if (value instanceof Collection) {
+			return ((Collection<?>) value).stream().map(WorkingDirectoryPool::toString)
+					.collect(Collectors.joining(", ", "[", "]"));
+		}
+		if (value instanceof Object[]) {
+			return toString(Arrays.asList((Object[]) value));
+		}
+		return String.valueOf(value);
+	}
+
+	private static List<Path> list(Path directory) throws IOException {
+		try (Stream<Path> stream = Files.list(directory)) {
+			return stream.filter(Files::isDirectory).collect(Collectors.toList());
+		}
+	}
+
+	static final class Lease {
+
+		private final Path directory;
+
+		private final Path lockFile;
+
+		private final Path preparedFile;
+
+		private volatile boolean acquired;
+
+		private FileLockRegistry.Lock lock;
+
+		private Lease(Path directory) {
+			this.directory = directory;
+			this.lockFile = directory.resolveSibling(directory.getFileName() + ".lock");
+			this.preparedFile = directory.resolveSibling(directory.getFileName() + ".prepared");
+		}
+
+		Path getDirectory() {
+			return this.directory;
+		}
+
+		boolean isPrepared() {
+			return Files.exists(this.preparedFile);
+		}
+
+		void prepared() throws IOException {
+			if (!Files.exists(this.preparedFile)) {
+				Files.createFile(this.preparedFile);
+			}
+		}
+
+		boolean acquire() throws IOException {
+			if (this.acquired) {
+				return true;
+			}
+			this.lock = FileLockRegistry.tryLock(this.lockFile, false);
+			this.acquired = this.lock != null;
+			return this.acquired;
+		}
+
+		void release() throws IOException {
+			try {
+				reset();
+			}
+			finally {
+				unlock();
+			}
+		}
+
+		private void reset() throws IOException {
+			for (String name : RESET_DIRECTORIES) {
+				FileUtils.delete(this.directory.resolve(name));
+			}
+		}
+
+		private void unlock() throws IOException {
+			if (!this.acquired) {
+				return;
+			}
+			this.acquired = false;
+			this.lock.close();
+		}
+
+	}
+
+}
@@ -19,14 +19,24 @@ package com.github.nosan.embedded.cassandra.commons;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.BiPredicate;
 
 /**
@@ -80,6 +90,27 @@ public final class FileUtils {
 		return true;
 	}
 
+	/**
+	 * Deletes the supplied {@link Path}. For directories, recursively delete any nested directories or files as well.
+	 * <p>Directories are deleted in parallel by a {@link ForkJoinPool} with the given parallelism. All errors are
+	 * collected, and the first error is thrown with the others added as suppressed exceptions.
+	 *
+	 * @param path the {@code path} to delete
+	 * @param parallelism the number of threads to use, {@code 1} deletes files in the calling thread
+	 * @return {@code true} if the {@code path} existed and was deleted, or {@code false} it did not exist
+	 * @throws IOException in the case of I/O errors
+	 * @since 4.0.7
+	 */
+	public static boolean delete(Path path, int parallelism) throws IOException {
+		checkParallelism(parallelism);
+		if (parallelism == 1 || path == null || !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+			return delete(path);
+		}
+		Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+		invoke(parallelism, new DeleteTask(path, failures), failures);
+		return true;
+	}
+
 	/**
 	 * Copies a path to a target path. For directories, it will be copied recursively.
 	 *
@@ -128,6 +159,37 @@ public final class FileUtils {
 		});
 	}
 
+	/**
+	 * Copies a path to a target path. For directories, it will be copied recursively.
+	 * <p>Directories are copied in parallel by a {@link ForkJoinPool} with the given parallelism. All errors are
+	 * collected, and the first error is thrown with the others added as suppressed exceptions.
+	 *
+	 * @param src the source path
+	 * @param dest the destination path
+	 * @param parallelism the number of threads to use, {@code 1} copies files in the calling thread
+	 * @param options specifying how the copy should be done the path to the target file
+	 * @param filter the function used to decide whether a path should be copied or not
+	 * @throws IOException in the case of I/O errors
+	 * @since 4.0.7
+	 */
+	public static void copy(Path src, Path dest, int parallelism,
+			BiPredicate<? super Path, ? super BasicFileAttributes> filter, CopyOption... options) throws IOException {
+		Objects.requireNonNull(src, "Source Path must not be null");
+		Objects.requireNonNull(dest, "Destination Path must not be null");
+		Objects.requireNonNull(options, "Copy Options must not be null");
+		checkParallelism(parallelism);
+		if (parallelism == 1 || !Files.isDirectory(src, LinkOption.NOFOLLOW_LINKS)) {
+			copy(src, dest, filter, options);
+			return;
+		}
+		BasicFileAttributes attributes = Files.readAttributes(src, BasicFileAttributes.class);
+		if (filter != null && !filter.test(src, attributes)) {
+			return;
+		}
+		Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+		invoke(parallelism, new CopyTask(src, dest, src, filter, options, failures), failures);
+	}
+
 	/**
 	 * Computes the checksum of the file using the provided algorithm.
 	 *
@@ -158,4 +220,153 @@ public final class FileUtils {
 		return hex.toString();
 	}
 
+	private static void checkParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be greater than 0");
+		}
+	}
+
+	private static void invoke(int parallelism, ForkJoinTask<?> task, Queue<IOException> failures)
+			throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(task);
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		Iterator<IOException> iterator = failures.iterator();
+		if (iterator.hasNext()) {
+			IOException ex = iterator.next();
+			iterator.forEachRemaining(ex::addSuppressed);
+			throw ex;
+		}
+	}
+
+	private static List<Path> list(Path directory) throws IOException {
+		List<Path> paths = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path path : stream) {
+				paths.add(path);
+			}
+		}
+		return paths;
+	}
+
+	private static final class CopyTask extends RecursiveTask<Void> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Path src;
+
+		private final Path dest;
+
+		private final Path directory;
+
+		private final BiPredicate<? super Path, ? super BasicFileAttributes> filter;
+
+		private final CopyOption[] options;
+
+		private final Queue<IOException> failures;
+
+		CopyTask(Path src, Path dest, Path directory, BiPredicate<? super Path, ? super BasicFileAttributes> filter,
+				CopyOption[] options, Queue<IOException> failures) {
+			this.src = src;
+			this.dest = dest;
+			this.directory = directory;
+			this.filter = filter;
+			this.options = options;
+			this.failures = failures;
+		}
+
+		@Override
+		protected Void compute() {
+			List<CopyTask> tasks = new ArrayList<>();
+			try {
+				Files.createDirectories(this.dest.resolve(this.src.relativize(this.directory)));
+				for (Path path : list(this.directory)) {
+					try {
+						BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+								LinkOption.NOFOLLOW_LINKS);
+						if (this.filter != null && !this.filter.test(path, attributes)) {
+							continue;
+						}
+						if (attributes.isDirectory()) {
+							tasks.add(new CopyTask(this.src, this.dest, path, this.filter, this.options,
+									this.failures));
+						}
+						else {
+							Files.copy(path, this.dest.resolve(this.src.relativize(path)), this.options);
+						}
+					}
+					catch (IOException ex) {
+						this.failures.add(ex);
+					}
+				}
+			}
+			catch (IOException ex) {
+				this.failures.add(ex);
+			}
+			invokeAll(tasks);
+			return null;
+		}
+
+	}
+
+	private static final class DeleteTask extends RecursiveTask<Boolean> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Path directory;
+
+		private final Queue<IOException> failures;
+
+		DeleteTask(Path directory, Queue<IOException> failures) {
+			this.directory = directory;
+			this.failures = failures;
+		}
+
+		@Override
+		protected Boolean compute() {
+			List<DeleteTask> tasks = new ArrayList<>();
+			boolean deleted = true;
+			try {
+				for (Path path : list(this.directory)) {
+					try {
+						if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+							tasks.add(new DeleteTask(path, this.failures));
+						}
+						else {
+							Files.deleteIfExists(path);
+						}
+					}
+					catch (IOException ex) {
+						this.failures.add(ex);
+						deleted = false;
+					}
+				}
+			}
+			catch (IOException ex) {
+				this.failures.add(ex);
+				return false;
+			}
+			for (DeleteTask task : invokeAll(tasks)) {
+				deleted &= task.join();
+			}
+			if (!deleted) {
+				//the directory is not empty, its children failures are already collected
+				return false;
+			}
+			try {
+				Files.deleteIfExists(this.directory);
+				return true;
+			}
+			catch (IOException ex) {
+				this.failures.add(ex);
+				return false;
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.nosan.embedded.cassandra.commons.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ArchiveExtractor}.
+ *
+ * @author Dmytro Nosan
+ */
+class ArchiveExtractorTests {
+
+	@Test
+	void parallelExtractionProducesSameOutput(@TempDir Path directory) throws IOException {
+		ClassPathResource resource = new ClassPathResource("apache-cassandra-4.0.1-bin.tar.gz");
+		Path serial = directory.resolve("serial");
+		Path parallel = directory.resolve("parallel");
+		try (ArchiveInputStream is = new WebCassandraDirectoryProvider().createArchiveInputStream(
+				resource.getInputStream())) {
+			new ArchiveExtractor(1, Collections.emptySet()).extract(is, serial);
+		}
+		try (ArchiveInputStream is = new WebCassandraDirectoryProvider().createArchiveInputStream(
+				resource.getInputStream())) {
+			new ArchiveExtractor(4, Collections.emptySet()).extract(is, parallel);
+		}
+		assertThat(snapshot(parallel)).isNotEmpty().isEqualTo(snapshot(serial));
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void preservePermissions(@TempDir Path directory) throws IOException {
+		byte[] archive = createArchive();
+		for (int threads : new int[]{1, 4}) {
+			Path destination = directory.resolve(Integer.toString(threads));
+			try (ArchiveInputStream is = new TarArchiveInputStream(new ByteArrayInputStream(archive))) {
+				new ArchiveExtractor(threads, Collections.emptySet()).extract(is, destination);
+			}
+			assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(destination.resolve("bin"))))
+					.isEqualTo("rwxr-x---");
+			assertThat(PosixFilePermissions.toString(
+					Files.getPosixFilePermissions(destination.resolve("bin/cassandra")))).isEqualTo("rwxr-xr-x");
+			assertThat(PosixFilePermissions.toString(
+					Files.getPosixFilePermissions(destination.resolve("conf/cassandra.yaml"))))
+					.isEqualTo("rw-r-----");
+			assertThat(PosixFilePermissions.toString(
+					Files.getPosixFilePermissions(destination.resolve("lib/cassandra.jar")))).isEqualTo("rw-r--r--");
+			assertThat(destination.resolve("lib/cassandra.jar")).hasBinaryContent(new byte[2 * 1024 * 1024]);
+			assertThat(destination.resolve("bin/cassandra")).hasContent("#!/bin/sh");
+		}
+	}
+
+	@Test
+	void excludeDirectories(@TempDir Path directory) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(os)) {
+			addEntry(tar, "apache-cassandra-4.0.1/", 0755, null);
+			addEntry(tar, "apache-cassandra-4.0.1/bin/cassandra", 0755, new byte[10]);
+			addEntry(tar, "apache-cassandra-4.0.1/doc/index.html", 0644, new byte[10]);
+			addEntry(tar, "apache-cassandra-4.0.1/docs/index.html", 0644, new byte[10]);
+			addEntry(tar, "apache-cassandra-4.0.1/pylib/cqlshlib/test/test.py", 0644, new byte[10]);
+			addEntry(tar, "apache-cassandra-4.0.1/pylib/cqlshlib/cqlsh.py", 0644, new byte[10]);
+		}
+		Set<String> excludes = new LinkedHashSet<>(Arrays.asList("doc", "pylib/cqlshlib/test"));
+		for (int threads : new int[]{1, 4}) {
+			Path destination = directory.resolve(Integer.toString(threads));
+			try (ArchiveInputStream is = new TarArchiveInputStream(new ByteArrayInputStream(os.toByteArray()))) {
+				new ArchiveExtractor(threads, excludes).extract(is, destination);
+			}
+			Path home = destination.resolve("apache-cassandra-4.0.1");
+			assertThat(home.resolve("bin/cassandra")).exists();
+			assertThat(home.resolve("docs/index.html")).exists();
+			assertThat(home.resolve("pylib/cqlshlib/cqlsh.py")).exists();
+			assertThat(home.resolve("doc")).doesNotExist();
+			assertThat(home.resolve("pylib/cqlshlib/test")).doesNotExist();
+		}
+	}
+
+	private static byte[] createArchive() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(os)) {
+			addEntry(tar, "bin/", 0750, null);
+			addEntry(tar, "bin/cassandra", 0755, "#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+			addEntry(tar, "conf/cassandra.yaml", 0440, "cluster_name: Test".getBytes(StandardCharsets.UTF_8));
+			addEntry(tar, "lib/cassandra.jar", 0644, new byte[2 * 1024 * 1024]);
+		}
+		return os.toByteArray();
+	}
+
+	private static void addEntry(TarArchiveOutputStream tar, String name, int mode, byte[] content)
+			throws IOException {
+		TarArchiveEntry entry = new TarArchiveEntry(name);
+		entry.setMode(mode);
+		if (content != null) {
+			entry.setSize(content.length);
+		}
+		tar.putArchiveEntry(entry);
+		if (content != null) {
+			tar.write(content);
+		}
+		tar.closeArchiveEntry();
+	}
+
+	private static Map<String, String> snapshot(Path directory) throws IOException {
+		Map<String, String> snapshot = new LinkedHashMap<>();
+		try (Stream<Path> stream = Files.walk(directory)) {
+			for (Path path : stream.sorted().collect(Collectors.toList())) {
+				String name = directory.relativize(path).toString();
+				snapshot.put(name, Files.isDirectory(path) ? "<dir>"
+						: Arrays.hashCode(Files.readAllBytes(path)) + ":" + Files.size(path));
+			}
+		}
+		return snapshot;
+	}
+
+}
@@ -95,6 +95,18 @@ class CassandraBuilderTests {
 				.hasStackTraceContaining("Startup Timeout must be positive");
 	}
 
+	@Test
+	void portRange() {
+		Cassandra cassandra = this.builder.portRange(40000, 40100).build();
+		assertThat(cassandra).extracting("portAllocator").isNotNull();
+	}
+
+	@Test
+	void portRangeInvalid() {
+		assertThatThrownBy(() -> this.builder.portRange(40100, 40000))
+				.hasStackTraceContaining("Port range [40100, 40000] is invalid");
+	}
+
 	@Test
 	void workingDirectory(@TempDir Path workingDirectory) {
 		Cassandra cassandra = this.builder.workingDirectory(() -> workingDirectory).build();
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CassandraPool}.
+ *
+ * @author Dmytro Nosan
+ */
+class CassandraPoolTests {
+
+	private final List<TestCassandra> instances = new ArrayList<>();
+
+	private CassandraPool pool;
+
+	@AfterEach
+	void close() {
+		if (this.pool != null) {
+			this.pool.close();
+		}
+	}
+
+	@Test
+	void startHandsOverStartedInstance() throws Exception {
+		this.pool = new CassandraPool(this::create, 2, 4);
+		assertThat(this.pool.getSize()).isEqualTo(2);
+		assertThat(this.instances).hasSize(2);
+		this.instances.get(0).started.await(5, TimeUnit.SECONDS);
+		assertThat(this.pool.getName()).isEqualTo("cassandra-0");
+		assertThat(this.pool.isRunning()).isFalse();
+
+		this.pool.start();
+		assertThat(this.pool.isRunning()).isTrue();
+		assertThat(this.pool.getName()).isEqualTo("cassandra-0");
+		assertThat(this.pool.getSettings()).isNull();
+		//a replacement is launched after each lease
+		assertThat(this.instances).hasSize(3);
+		assertThat(this.instances.get(0).starts).hasValue(1);
+
+		this.pool.stop();
+		assertThat(this.pool.isRunning()).isFalse();
+		assertThat(this.instances.get(0).stops).hasValue(1);
+		this.pool.start();
+		assertThat(this.pool.getName()).isEqualTo("cassandra-1");
+		assertThat(this.instances).hasSize(4);
+	}
+
+	@Test
+	void sizeIsLimited() {
+		this.pool = new CassandraPool(this::create, 8, 2);
+		assertThat(this.pool.getSize()).isEqualTo(2);
+		assertThat(this.instances).hasSize(2);
+	}
+
+	@Test
+	void invalidSize() {
+		assertThatThrownBy(() -> new CassandraPool(this::create, 0, 2))
+				.hasMessage("Size must be greater than 0");
+	}
+
+	@Test
+	void startFailed() {
+		this.pool = new CassandraPool(() -> {
+			TestCassandra cassandra = create();
+			cassandra.failure = new CassandraException("Failed", null);
+			return cassandra;
+		}, 1, 1);
+		assertThatThrownBy(this.pool::start).hasMessage("Failed");
+		assertThat(this.pool.isRunning()).isFalse();
+	}
+
+	@Test
+	void closeStopsAllInstances() {
+		this.pool = new CassandraPool(this::create, 2, 2);
+		this.pool.start();
+		this.pool.close();
+		assertThat(this.instances).hasSize(3).allSatisfy(cassandra -> assertThat(cassandra.isRunning()).isFalse());
+		assertThatThrownBy(this.pool::start).hasMessage("Cassandra pool has been closed");
+	}
+
+	private synchronized TestCassandra create() {
+		TestCassandra cassandra = new TestCassandra("cassandra-" + this.instances.size());
+		this.instances.add(cassandra);
+		return cassandra;
+	}
+
+	private static final class TestCassandra implements Cassandra {
+
+		private final String name;
+
+		private final AtomicInteger starts = new AtomicInteger();
+
+		private final AtomicInteger stops = new AtomicInteger();
+
+		private final CountDownLatch started = new CountDownLatch(1);
+
+		private volatile CassandraException failure;
+
+		private volatile boolean running;
+
+		TestCassandra(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void start() throws CassandraException {
+			if (this.failure != null) {
+				throw this.failure;
+			}
+			this.starts.incrementAndGet();
+			this.running = true;
+			this.started.countDown();
+		}
+
+		@Override
+		public void stop() throws CassandraException {
+			if (this.running) {
+				this.stops.incrementAndGet();
+				this.running = false;
+			}
+		}
+
+		@Override
+		public boolean isRunning() {
+			return this.running;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public Version getVersion() {
+			return CassandraBuilder.DEFAULT_VERSION;
+		}
+
+		@Override
+		public Path getWorkingDirectory() {
+			return Paths.get(this.name);
+		}
+
+		@Override
+		public Settings getSettings() throws IllegalStateException {
+			return null;
+		}
+
+	}
+
+}
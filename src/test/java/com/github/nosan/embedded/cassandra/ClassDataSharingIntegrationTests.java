@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.condition.OS;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ClassDataSharing}.
+ *
+ * @author Dmytro Nosan
+ */
+@DisabledOnOs(OS.WINDOWS)
+@EnabledForJreRange(min = JRE.JAVA_13)
+class ClassDataSharingIntegrationTests {
+
+	//Cassandra 4.0 does not run on Java 17, Cassandra 5.0 does
+	private final Version version = Version.parse(JRE.currentVersion().compareTo(JRE.JAVA_17) >= 0 ? "5.0.2"
+			: "4.0.3");
+
+	@Test
+	void createAndUseArchive() throws IOException {
+		Cassandra cassandra = builder().build();
+		Path cassandraDirectory;
+		try {
+			cassandra.start();
+			cassandraDirectory = LaunchDescriptor.getDistribution(cassandra.getWorkingDirectory());
+			assertThat(cassandraDirectory).isNotNull();
+		}
+		finally {
+			cassandra.stop();
+		}
+		Path archiveDirectory = cassandraDirectory.resolveSibling(ClassDataSharing.ARCHIVE_DIRECTORY);
+		List<Path> archives = getArchives(archiveDirectory);
+		assertThat(archives).hasSize(1);
+
+		//another working directory, -Xshare:on fails the launch if the archive is rejected
+		Cassandra other = builder().addJvmOptions("-Xshare:on").build();
+		try {
+			other.start();
+			assertThat(other.getWorkingDirectory()).isNotEqualTo(cassandra.getWorkingDirectory());
+			assertThat(other.isRunning()).isTrue();
+		}
+		finally {
+			other.stop();
+		}
+		assertThat(getArchives(archiveDirectory)).isEqualTo(archives);
+	}
+
+	private CassandraBuilder builder() {
+		CassandraBuilder builder = new CassandraBuilder().version(this.version).classDataSharing(true);
+		if (System.getenv("CI") != null) {
+			builder.startupTimeout(Duration.ofMinutes(10));
+		}
+		return builder;
+	}
+
+	private static List<Path> getArchives(Path directory) throws IOException {
+		try (Stream<Path> stream = Files.list(directory)) {
+			return stream.filter(path -> path.getFileName().toString().endsWith(".jsa")).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+}
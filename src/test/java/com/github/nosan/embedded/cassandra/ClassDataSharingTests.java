@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ClassDataSharing}.
+ *
+ * @author Dmytro Nosan
+ */
+@EnabledForJreRange(min = JRE.JAVA_13)
+class ClassDataSharingTests {
+
+	private final Path javaHome = Paths.get(System.getProperty("java.home"));
+
+	private final ClassDataSharing classDataSharing = new ClassDataSharing();
+
+	@Test
+	void getJvmOptionsNotLinked(@TempDir Path workingDirectory) {
+		assertThat(this.classDataSharing.getJvmOptions(workingDirectory, this.javaHome)).isEmpty();
+	}
+
+	@Test
+	void getJvmOptions(@TempDir Path directory) throws IOException {
+		Path cassandraDirectory = Files.createDirectories(directory.resolve("4.0.1/apache-cassandra-4.0.1"));
+		Path workingDirectory = Files.createDirectory(directory.resolve("workingDirectory"));
+		Path manifestFile = cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE);
+		Files.createDirectories(cassandraDirectory.resolve("lib"));
+		Files.createFile(cassandraDirectory.resolve("lib/apache-cassandra-4.0.1.jar"));
+		DirectoryManifest.create(cassandraDirectory).save(manifestFile);
+		link(cassandraDirectory, workingDirectory);
+
+		List<String> options = this.classDataSharing.getJvmOptions(workingDirectory, this.javaHome);
+		assertThat(options).hasSize(1);
+		assertThat(options.get(0)).startsWith("-XX:ArchiveClassesAtExit=");
+		Path pending = Paths.get(options.get(0).substring("-XX:ArchiveClassesAtExit=".length()));
+		assertThat(pending.getParent())
+				.isEqualTo(cassandraDirectory.resolveSibling(ClassDataSharing.ARCHIVE_DIRECTORY));
+		assertThat(pending.getFileName().toString()).matches("java\\d+-[0-9a-f]{64}-[0-9a-f]{64}-.+\\.jsa\\.tmp");
+
+		//the archive is not written, e.g. Cassandra was killed
+		this.classDataSharing.publish();
+		assertThat(this.classDataSharing.getJvmOptions(workingDirectory, this.javaHome).get(0))
+				.startsWith("-XX:ArchiveClassesAtExit=");
+
+		pending = Paths.get(this.classDataSharing.getJvmOptions(workingDirectory, this.javaHome).get(0)
+				.substring("-XX:ArchiveClassesAtExit=".length()));
+		Files.write(pending, new byte[]{1});
+		this.classDataSharing.publish();
+		assertThat(pending).doesNotExist();
+		options = this.classDataSharing.getJvmOptions(workingDirectory, this.javaHome);
+		assertThat(options.get(0)).startsWith("-XX:SharedArchiveFile=");
+		Path archive = Paths.get(options.get(0).substring("-XX:SharedArchiveFile=".length()));
+		assertThat(archive).exists();
+
+		//a new distribution
+		Files.createFile(cassandraDirectory.resolve("lib/netty.jar"));
+		DirectoryManifest.create(cassandraDirectory).save(manifestFile);
+		Files.setLastModifiedTime(manifestFile, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+		link(cassandraDirectory, workingDirectory);
+		assertThat(this.classDataSharing.getJvmOptions(workingDirectory, this.javaHome).get(0))
+				.startsWith("-XX:ArchiveClassesAtExit=");
+		assertThat(archive).doesNotExist();
+	}
+
+	@Test
+	void getJvmOptionsSharedByWorkingDirectories(@TempDir Path directory) throws IOException {
+		Path cassandraDirectory = Files.createDirectories(directory.resolve("4.0.1/apache-cassandra-4.0.1"));
+		Path workingDirectory = Files.createDirectory(directory.resolve("workingDirectory"));
+		Path otherWorkingDirectory = Files.createDirectory(directory.resolve("otherWorkingDirectory"));
+		Files.createDirectories(cassandraDirectory.resolve("lib"));
+		Files.createFile(cassandraDirectory.resolve("lib/apache-cassandra-4.0.1.jar"));
+		DirectoryManifest.create(cassandraDirectory)
+				.save(cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE));
+		link(cassandraDirectory, workingDirectory);
+		link(cassandraDirectory, otherWorkingDirectory);
+
+		Path pending = Paths.get(this.classDataSharing.getJvmOptions(workingDirectory, this.javaHome).get(0)
+				.substring("-XX:ArchiveClassesAtExit=".length()));
+		Files.write(pending, new byte[]{1});
+		this.classDataSharing.publish();
+		assertThat(new ClassDataSharing().getJvmOptions(otherWorkingDirectory, this.javaHome))
+				.containsExactlyElementsOf(this.classDataSharing.getJvmOptions(workingDirectory, this.javaHome))
+				.allMatch(option -> option.startsWith("-XX:SharedArchiveFile="));
+	}
+
+	private static void link(Path cassandraDirectory, Path workingDirectory) throws IOException {
+		FileUtils.copy(cassandraDirectory, workingDirectory, StandardCopyOption.REPLACE_EXISTING);
+		LaunchDescriptor.link(cassandraDirectory, workingDirectory);
+		assertThat(LaunchDescriptor.getDistribution(workingDirectory)).isNotNull();
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DataSnapshot}.
+ *
+ * @author Dmytro Nosan
+ */
+class DataSnapshotTests {
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void captureAndRestore(@TempDir Path directory) throws IOException {
+		Path workingDirectory = directory.resolve("cassandra");
+		Path table = Files.createDirectories(workingDirectory.resolve("data/data/test/users"));
+		Files.write(table.resolve("nb-1-big-Data.db"), Collections.singleton("users"));
+		Files.write(table.resolve("nb-1-big-Summary.db"), Collections.singleton("summary"));
+		Path commitlog = Files.createDirectories(workingDirectory.resolve("data/commitlog"));
+		Files.write(commitlog.resolve("CommitLog-7-1.log"), Collections.singleton("commitlog"));
+		Cassandra cassandra = Mockito.mock(Cassandra.class);
+		Mockito.when(cassandra.getWorkingDirectory()).thenReturn(workingDirectory);
+
+		DataSnapshot snapshot = DataSnapshot.of(directory.resolve("snapshots/schema"));
+		assertThat(snapshot.exists()).isFalse();
+		snapshot.capture(cassandra);
+		assertThat(snapshot.exists()).isTrue();
+		assertThat(Files.isSameFile(table.resolve("nb-1-big-Data.db"),
+				snapshot.getDirectory().resolve("data/test/users/nb-1-big-Data.db"))).isTrue();
+		assertThat(Files.isSameFile(table.resolve("nb-1-big-Summary.db"),
+				snapshot.getDirectory().resolve("data/test/users/nb-1-big-Summary.db"))).isFalse();
+		assertThat(Files.isSameFile(commitlog.resolve("CommitLog-7-1.log"),
+				snapshot.getDirectory().resolve("commitlog/CommitLog-7-1.log"))).isFalse();
+
+		Path newWorkingDirectory = directory.resolve("new");
+		Files.createDirectories(newWorkingDirectory.resolve("data/data/stale"));
+		snapshot.restore().customize(newWorkingDirectory, CassandraBuilder.DEFAULT_VERSION);
+		assertThat(newWorkingDirectory.resolve("data/data/stale")).doesNotExist();
+		assertThat(Files.isSameFile(newWorkingDirectory.resolve("data/data/test/users/nb-1-big-Data.db"),
+				snapshot.getDirectory().resolve("data/test/users/nb-1-big-Data.db"))).isTrue();
+		assertThat(newWorkingDirectory.resolve("data/data/test/users/nb-1-big-Summary.db")).hasContent("summary");
+		assertThat(Files.isSameFile(newWorkingDirectory.resolve("data/data/test/users/nb-1-big-Summary.db"),
+				snapshot.getDirectory().resolve("data/test/users/nb-1-big-Summary.db"))).isFalse();
+		assertThat(newWorkingDirectory.resolve("data/commitlog/CommitLog-7-1.log")).hasContent("commitlog");
+	}
+
+	@Test
+	void captureReplacesExistingSnapshot(@TempDir Path directory) throws IOException {
+		Path workingDirectory = directory.resolve("cassandra");
+		Path commitlog = Files.createDirectories(workingDirectory.resolve("data/commitlog"));
+		Files.write(commitlog.resolve("CommitLog-7-1.log"), Collections.singleton("first"));
+		Cassandra cassandra = Mockito.mock(Cassandra.class);
+		Mockito.when(cassandra.getWorkingDirectory()).thenReturn(workingDirectory);
+		DataSnapshot snapshot = DataSnapshot.of(directory.resolve("snapshots/schema"));
+		snapshot.capture(cassandra);
+		Files.delete(commitlog.resolve("CommitLog-7-1.log"));
+		Files.write(commitlog.resolve("CommitLog-7-2.log"), Collections.singleton("second"));
+
+		snapshot.capture(cassandra);
+
+		assertThat(snapshot.getDirectory().resolve("commitlog/CommitLog-7-1.log")).doesNotExist();
+		assertThat(snapshot.getDirectory().resolve("commitlog/CommitLog-7-2.log")).hasContent("second");
+		try (Stream<Path> stream = Files.list(directory.resolve("snapshots"))) {
+			assertThat(stream.map(Path::getFileName).map(Path::toString)).containsExactly("schema");
+		}
+	}
+
+	@Test
+	void captureEphemeralStorage(@TempDir Path directory) throws IOException {
+		Path workingDirectory = Files.createDirectories(directory.resolve("cassandra/data"));
+		Files.write(directory.resolve("cassandra").resolve(EphemeralStorage.MARKER_FILE),
+				Collections.singleton("/dev/shm/embedded-cassandra-1/data"));
+		Cassandra cassandra = Mockito.mock(Cassandra.class);
+		Mockito.when(cassandra.getWorkingDirectory()).thenReturn(workingDirectory.getParent());
+		assertThatThrownBy(() -> DataSnapshot.of(directory.resolve("snapshot")).capture(cassandra))
+				.isInstanceOf(IllegalStateException.class).hasMessageContaining("ephemeral storage");
+		assertThat(directory.resolve("snapshot")).doesNotExist();
+	}
+
+	@Test
+	void captureRunning(@TempDir Path directory) {
+		Cassandra cassandra = Mockito.mock(Cassandra.class);
+		Mockito.when(cassandra.isRunning()).thenReturn(true);
+		assertThatThrownBy(() -> DataSnapshot.of(directory).capture(cassandra))
+				.isInstanceOf(IllegalStateException.class).hasMessageContaining("must be stopped");
+	}
+
+	@Test
+	void restoreNotExisting(@TempDir Path directory) {
+		assertThatThrownBy(() -> DataSnapshot.of(directory.resolve("snapshot")).restore()
+				.customize(directory, CassandraBuilder.DEFAULT_VERSION))
+				.isInstanceOf(IllegalStateException.class).hasMessageContaining("does not exist");
+	}
+
+}
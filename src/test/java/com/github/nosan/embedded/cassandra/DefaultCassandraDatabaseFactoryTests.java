@@ -37,10 +37,13 @@ import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 import org.yaml.snakeyaml.Yaml;
 
 import com.github.nosan.embedded.cassandra.commons.ClassPathResource;
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
 import com.github.nosan.embedded.cassandra.commons.Resource;
 import com.github.nosan.embedded.cassandra.commons.UrlResource;
 
@@ -259,6 +262,29 @@ class DefaultCassandraDatabaseFactoryTests {
 		assertThat(systemProperties.get("com.sun.management.jmxremote.rmi.port")).isNotEqualTo("0");
 	}
 
+	@Test
+	void setSystemPropertiesReplaceRandomPortsFromRange(@TempDir Path workingDirectory) throws Exception {
+		this.systemProperties.put("cassandra.native_transport_port", 0);
+		this.systemProperties.put("cassandra.storage_port", 0);
+		this.configProperties.put("rpc_port", 0);
+		PortAllocator portAllocator = new PortAllocator(workingDirectory.resolve("ports"), 41000, 41100);
+		try {
+			CassandraDatabase database = new DefaultCassandraDatabaseFactory("test", Version.parse("4.0.1"),
+					this.environmentVariables, this.configProperties, this.systemProperties, this.jvmOptions, null,
+					false, null, portAllocator).create(workingDirectory);
+			Map<String, String> systemProperties = database.getSystemProperties();
+			assertThat(Integer.parseInt(systemProperties.get("cassandra.native_transport_port")))
+					.isBetween(41000, 41100);
+			assertThat(Integer.parseInt(systemProperties.get("cassandra.storage_port"))).isBetween(41000, 41100)
+					.isNotEqualTo(Integer.parseInt(systemProperties.get("cassandra.native_transport_port")));
+			assertThat(Integer.parseInt(database.getConfigProperties().get("rpc_port").toString()))
+					.isBetween(41000, 41100);
+		}
+		finally {
+			portAllocator.release();
+		}
+	}
+
 	@Test
 	void setConfigPropertiesReplaceRandomPorts(@TempDir Path workingDirectory) throws Exception {
 		this.configProperties.put("native_transport_port", 0);
@@ -490,6 +516,146 @@ class DefaultCassandraDatabaseFactoryTests {
 		assertThat(configProperties.get("test")).isEqualTo(InetAddress.getLoopbackAddress().getHostName());
 	}
 
+	@Test
+	void configureEphemeralStorage(@TempDir Path workingDirectory) throws Exception {
+		Path root = Files.createDirectory(workingDirectory.resolve("shm"));
+		this.configProperties.put("commitlog_directory", "commitlog");
+		EphemeralStorage ephemeralStorage = new EphemeralStorage(root, 0);
+		CassandraDatabase database = new DefaultCassandraDatabaseFactory("test", Version.parse("4.0.1"),
+				this.environmentVariables, this.configProperties, this.systemProperties, this.jvmOptions,
+				ephemeralStorage).create(workingDirectory);
+		Map<String, Object> configProperties = database.getConfigProperties();
+		assertThat(configProperties.get("data_file_directories")).asList().singleElement().asString()
+				.startsWith(root.toString());
+		assertThat(configProperties.get("saved_caches_directory")).asString().startsWith(root.toString());
+		assertThat(configProperties.get("hints_directory")).asString().startsWith(root.toString());
+		assertThat(configProperties.get("cdc_raw_directory")).asString().startsWith(root.toString());
+		assertThat(configProperties.get("commitlog_directory")).isEqualTo("commitlog");
+		assertThat(workingDirectory.resolve(EphemeralStorage.MARKER_FILE)).content()
+				.startsWith(root.toString());
+		ephemeralStorage.delete();
+		assertThat(root).isEmptyDirectory();
+		create(Version.parse("4.0.1"), workingDirectory);
+		assertThat(workingDirectory.resolve(EphemeralStorage.MARKER_FILE)).doesNotExist();
+	}
+
+	@Test
+	void configureEphemeralStorageOldVersion(@TempDir Path workingDirectory) throws Exception {
+		Path root = Files.createDirectory(workingDirectory.resolve("shm"));
+		CassandraDatabase database = new DefaultCassandraDatabaseFactory("test", Version.parse("2.2.19"),
+				this.environmentVariables, this.configProperties, this.systemProperties, this.jvmOptions,
+				new EphemeralStorage(root, 0)).create(workingDirectory);
+		Map<String, Object> configProperties = database.getConfigProperties();
+		assertThat(configProperties.get("commitlog_directory")).asString().startsWith(root.toString());
+		assertThat(configProperties).doesNotContainKeys("hints_directory", "cdc_raw_directory");
+	}
+
+	@Test
+	void configureEphemeralStorageNotEnoughSpace(@TempDir Path workingDirectory) throws Exception {
+		Path root = Files.createDirectory(workingDirectory.resolve("shm"));
+		CassandraDatabase database = new DefaultCassandraDatabaseFactory("test", Version.parse("4.0.1"),
+				this.environmentVariables, this.configProperties, this.systemProperties, this.jvmOptions,
+				new EphemeralStorage(root, Long.MAX_VALUE)).create(workingDirectory);
+		assertThat(database.getConfigProperties()).doesNotContainKeys("commitlog_directory");
+		assertThat(root).isEmptyDirectory();
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void directLaunch(@TempDir Path workingDirectory) throws Exception {
+		Files.createDirectories(workingDirectory.resolve("lib"));
+		Files.createFile(workingDirectory.resolve("lib/apache-cassandra-4.0.1.jar"));
+		Files.createFile(workingDirectory.resolve("lib/jamm-0.3.2.jar"));
+		Files.write(workingDirectory.resolve("conf/jvm-server.options"),
+				Arrays.asList("# comment", "-ea", "#-Xmx4G", "-XX:+UseConcMarkSweepGC"));
+		Files.write(workingDirectory.resolve("conf/jvm11-server.options"), Collections.singleton("-Xss256k"));
+		Files.write(workingDirectory.resolve("conf/jvm8-server.options"), Collections.singleton("-Xss1m"));
+		Files.write(workingDirectory.resolve("conf/cassandra-env.sh"), Arrays.asList("#JMX_PORT=\"7399\"",
+				"if [ \"x$LOCAL_JMX\" = \"x\" ]; then", "    JMX_PORT=\"7499\"", "fi", "JMX_PORT=\"7299\""));
+		this.jvmOptions.add("-Xmx512m");
+		this.systemProperties.put("namevalue", "value");
+		this.environmentVariables.put("JVM_EXTRA_OPTS", "-Dextra");
+		this.environmentVariables.put("MAX_HEAP_SIZE", "1G");
+		this.environmentVariables.put("HEAP_NEWSIZE", "128m");
+		this.environmentVariables.put("JMX_PORT", "7599");
+		CassandraDatabase database = new DefaultCassandraDatabaseFactory("test", Version.parse("4.0.1"),
+				this.environmentVariables, this.configProperties, this.systemProperties, this.jvmOptions, null,
+				true, null, null).create(workingDirectory);
+		assertThat(database).isInstanceOf(DirectCassandraDatabase.class);
+		assertThat(database.getEnvironmentVariables().get("JVM_EXTRA_OPTS")).isEqualTo("-Dextra");
+		List<String> command = ((DirectCassandraDatabase) database).getCommand();
+		//the options file and the GC log option depend on the Java version Cassandra is launched with
+		int javaVersion = LaunchDescriptor.get(workingDirectory)
+				.getJavaVersion(Paths.get(System.getProperty("java.home")));
+		String stackSize = (javaVersion >= 11) ? "-Xss256k" : "-Xss1m";
+		String gcLog = (javaVersion >= 11) ? "-Xlog:gc=" : "-Xloggc:";
+		assertThat(command.get(0)).isEqualTo(Paths.get(System.getProperty("java.home"), "bin/java").toString());
+		assertThat(command).containsSubsequence("-ea", "-XX:+UseConcMarkSweepGC", stackSize, "-Xms1G", "-Xmx1G",
+				"-Xmn128m", "-javaagent:" + workingDirectory.resolve("lib/jamm-0.3.2.jar"),
+				"-Dcassandra.jmx.local.port=7299", "-Dextra", "-Xmx512m", "-Dnamevalue=value",
+				"-Dcassandra.config=" + database.getConfigurationFile().toUri(), "-XX:OnOutOfMemoryError=kill -9 %p",
+				"-Dcassandra.logdir=" + workingDirectory.resolve("logs"), "-cp",
+				String.join(File.pathSeparator, workingDirectory.resolve("lib/apache-cassandra-4.0.1.jar").toString(),
+						workingDirectory.resolve("lib/jamm-0.3.2.jar").toString(),
+						workingDirectory.resolve("conf").toString()),
+				DirectCassandraDatabase.MAIN_CLASS);
+		assertThat(command).doesNotContain("-Xmx4G", (javaVersion >= 11) ? "-Xss1m" : "-Xss256k");
+		assertThat(command).anyMatch(option -> option.startsWith(gcLog)
+				&& option.contains(workingDirectory.resolve("logs/gc.log").toString()));
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void directLaunchHeapSizeNotInPairs(@TempDir Path workingDirectory) throws Exception {
+		Files.write(workingDirectory.resolve("conf/jvm-server.options"),
+				Collections.singleton("-XX:+UseConcMarkSweepGC"));
+		this.environmentVariables.put("HEAP_NEWSIZE", "128m");
+		CassandraDatabase database = new DefaultCassandraDatabaseFactory("test", Version.parse("4.0.1"),
+				this.environmentVariables, this.configProperties, this.systemProperties, this.jvmOptions, null,
+				true, null, null).create(workingDirectory);
+		assertThatThrownBy(((DirectCassandraDatabase) database)::getCommand).isInstanceOf(IOException.class)
+				.hasMessageContaining("MAX_HEAP_SIZE and HEAP_NEWSIZE");
+		this.environmentVariables.put("MAX_HEAP_SIZE", "1G");
+		Files.write(workingDirectory.resolve("conf/jvm-server.options"), Arrays.asList("-XX:+UseG1GC", "-Xmn128m"));
+		database = new DefaultCassandraDatabaseFactory("test", Version.parse("4.0.1"), this.environmentVariables,
+				this.configProperties, this.systemProperties, this.jvmOptions, null, true, null, null)
+				.create(workingDirectory);
+		assertThatThrownBy(((DirectCassandraDatabase) database)::getCommand).isInstanceOf(IOException.class)
+				.hasMessageContaining("-Xmn");
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void directLaunchLinked(@TempDir Path directory) throws Exception {
+		Path cassandraDirectory = Files.createDirectories(directory.resolve("4.0.1/apache-cassandra-4.0.1"));
+		Path workingDirectory = Files.createDirectory(directory.resolve("workingDirectory"));
+		Files.createDirectories(cassandraDirectory.resolve("lib"));
+		Files.createFile(cassandraDirectory.resolve("lib/apache-cassandra-4.0.1.jar"));
+		Files.createFile(cassandraDirectory.resolve("lib/jamm-0.3.2.jar"));
+		DirectoryManifest.create(cassandraDirectory)
+				.save(cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE));
+		FileUtils.copy(cassandraDirectory, workingDirectory);
+		LaunchDescriptor.link(cassandraDirectory, workingDirectory);
+		prepareWorkingDirectory(workingDirectory);
+		CassandraDatabase database = new DefaultCassandraDatabaseFactory("test", Version.parse("4.0.1"),
+				this.environmentVariables, this.configProperties, this.systemProperties, this.jvmOptions, null,
+				false, new ClassDataSharing(), null).create(workingDirectory);
+		assertThat(database).isInstanceOf(DirectCassandraDatabase.class);
+		List<String> command = ((DirectCassandraDatabase) database).getCommand();
+		assertThat(command).containsSubsequence("-javaagent:" + cassandraDirectory.resolve("lib/jamm-0.3.2.jar"),
+				"-cp", String.join(File.pathSeparator, cassandraDirectory.resolve("lib/apache-cassandra-4.0.1.jar")
+						.toString(), cassandraDirectory.resolve("lib/jamm-0.3.2.jar").toString(),
+						workingDirectory.resolve("conf").toString()));
+	}
+
+	@Test
+	void directLaunchOldVersion(@TempDir Path workingDirectory) throws Exception {
+		CassandraDatabase database = new DefaultCassandraDatabaseFactory("test", Version.parse("2.2.19"),
+				this.environmentVariables, this.configProperties, this.systemProperties, this.jvmOptions, null,
+				true, null, null).create(workingDirectory);
+		assertThat(database).isNotInstanceOf(DirectCassandraDatabase.class);
+	}
+
 	private CassandraDatabase create(Version version, Path workingDirectory) throws Exception {
 		return new DefaultCassandraDatabaseFactory("test", version, this.environmentVariables,
 				this.configProperties, this.systemProperties, this.jvmOptions).create(workingDirectory);
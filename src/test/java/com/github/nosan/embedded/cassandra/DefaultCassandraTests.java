@@ -18,9 +18,19 @@ package com.github.nosan.embedded.cassandra;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -42,6 +52,56 @@ class DefaultCassandraTests {
 		assertThatThrownBy(() -> this.builder.build().start()).hasStackTraceContaining("Unable to initialize");
 	}
 
+	@Test
+	void startAsyncUnableToInitialize() {
+		Cassandra cassandra = this.builder.workingDirectoryInitializer((workingDirectory, version) -> {
+			throw new IOException("Fail");
+		}).build();
+		CompletableFuture<Settings> future = cassandra.startAsync(Runnable::run);
+		assertThat(future).isCompletedExceptionally();
+		assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(CassandraException.class).hasStackTraceContaining("Unable to initialize");
+		assertThat(cassandra.isRunning()).isFalse();
+	}
+
+	@Test
+	void startAsyncCancelled() {
+		List<Runnable> tasks = new ArrayList<>();
+		Cassandra cassandra = this.builder.workingDirectoryInitializer((workingDirectory, version) -> {
+			throw new IllegalStateException("Should not be initialized");
+		}).build();
+		CompletableFuture<Settings> future = cassandra.startAsync(tasks::add);
+		assertThat(future.cancel(true)).isTrue();
+		assertThat(tasks).hasSize(1);
+		tasks.get(0).run();
+		assertThat(future).isCancelled();
+		assertThat(cassandra.isRunning()).isFalse();
+	}
+
+	@Test
+	void startAsyncCancelledWhileInitializing(@TempDir Path workingDirectory) throws Exception {
+		List<Runnable> tasks = new ArrayList<>();
+		List<Path> destroyed = new ArrayList<>();
+		AtomicReference<CompletableFuture<Settings>> future = new AtomicReference<>();
+		CassandraDatabase database = Mockito.mock(CassandraDatabase.class);
+		Cassandra cassandra = new DefaultCassandra("test", CassandraBuilder.DEFAULT_VERSION, workingDirectory, false,
+				(directory, version) -> future.get().cancel(true), (directory, version) -> destroyed.add(directory),
+				Duration.ofMinutes(1), Collections.emptySet(), directory -> database, Logger.get(Cassandra.class));
+		future.set(cassandra.startAsync(tasks::add));
+		tasks.get(0).run();
+		assertThat(future.get()).isCancelled();
+		Mockito.verify(database, Mockito.never()).start();
+		assertThat(destroyed).containsExactly(workingDirectory);
+		assertThat(cassandra.isRunning()).isFalse();
+	}
+
+	@Test
+	void stopAsyncNotStarted() {
+		Cassandra cassandra = this.builder.build();
+		assertThat(cassandra.stopAsync(Runnable::run)).isCompleted();
+		assertThat(cassandra.isRunning()).isFalse();
+	}
+
 	@Test
 	void getName() {
 		Cassandra cassandra = this.builder.name("test").build();
@@ -60,4 +120,31 @@ class DefaultCassandraTests {
 		assertThat(cassandra.getWorkingDirectory()).isEqualTo(workingDirectory);
 	}
 
+	@Test
+	void getWorkingDirectoryFromPool(@TempDir Path directory) {
+		WorkingDirectoryPool pool = new WorkingDirectoryPool(directory);
+		List<Path> workingDirectories = new ArrayList<>();
+		Cassandra cassandra = this.builder.workingDirectoryPool(pool)
+				.workingDirectoryInitializer((workingDirectory, version) -> {
+					workingDirectories.add(workingDirectory);
+					throw new IOException("Fail");
+				}).build();
+		//nothing is leased until Cassandra is started
+		Path keyDirectory = cassandra.getWorkingDirectory();
+		assertThat(keyDirectory.getParent()).isEqualTo(directory);
+		assertThat(keyDirectory).doesNotExist();
+		assertThat(this.builder.build().getWorkingDirectory()).isEqualTo(keyDirectory);
+		assertThat(this.builder.addJvmOptions("-Xss512k").build().getWorkingDirectory()).isNotEqualTo(keyDirectory);
+		assertThat(this.builder.workingDirectoryPool(pool, "test").build().getWorkingDirectory())
+				.isNotEqualTo(keyDirectory);
+
+		assertThatThrownBy(cassandra::start).hasStackTraceContaining("Unable to initialize");
+		assertThatThrownBy(cassandra::start).hasStackTraceContaining("Unable to initialize");
+		//the lease is given back when a start fails
+		assertThat(workingDirectories).hasSize(2);
+		assertThat(workingDirectories.get(0)).isEqualTo(workingDirectories.get(1));
+		assertThat(workingDirectories.get(0).getParent()).isEqualTo(keyDirectory);
+		assertThat(cassandra.getWorkingDirectory()).isEqualTo(workingDirectories.get(0));
+	}
+
 }
@@ -19,9 +19,13 @@ package com.github.nosan.embedded.cassandra;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.Collections;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
@@ -56,6 +60,21 @@ class DefaultWorkingDirectoryInitializerTests {
 						DefaultWorkingDirectoryInitializer.CopyStrategy.REPLACE_EXISTING);
 	}
 
+	@Test
+	void linkOnlyForDirectLaunch(@TempDir Path tempDir) throws IOException {
+		CassandraDirectoryProvider directoryProvider = Mockito.mock(CassandraDirectoryProvider.class);
+		DefaultWorkingDirectoryInitializer initializer = new DefaultWorkingDirectoryInitializer(directoryProvider);
+		Path cassandraDirectory = Files.createDirectory(tempDir.resolve("cassandraDirectory"));
+		Path workingDirectory = Files.createDirectory(tempDir.resolve("workingDirectory"));
+		Mockito.when(directoryProvider.getDirectory(CassandraBuilder.DEFAULT_VERSION))
+				.thenReturn(cassandraDirectory);
+		prepare(cassandraDirectory);
+		initializer.init(workingDirectory, CassandraBuilder.DEFAULT_VERSION);
+		assertThat(workingDirectory.resolve(LaunchDescriptor.DISTRIBUTION_FILE)).doesNotExist();
+		initializer.init(workingDirectory, CassandraBuilder.DEFAULT_VERSION, true);
+		assertThat(workingDirectory.resolve(LaunchDescriptor.DISTRIBUTION_FILE)).exists();
+	}
+
 	@Test
 	void initializeWorkingDirReplaceExisting(@TempDir Path tempDir) throws IOException {
 		CassandraDirectoryProvider directoryProvider = Mockito.mock(CassandraDirectoryProvider.class);
@@ -74,6 +93,20 @@ class DefaultWorkingDirectoryInitializerTests {
 		assertThat(workingDirectory.resolve("conf/cassandra.yaml")).hasContent("");
 	}
 
+	@Test
+	void initializeWorkingDirParallel(@TempDir Path tempDir) throws IOException {
+		CassandraDirectoryProvider directoryProvider = Mockito.mock(CassandraDirectoryProvider.class);
+		WorkingDirectoryInitializer initializer = new DefaultWorkingDirectoryInitializer(
+				directoryProvider, DefaultWorkingDirectoryInitializer.CopyStrategy.REPLACE_EXISTING, 4);
+		Path cassandraDirectory = Files.createDirectory(tempDir.resolve("cassandraDirectory"));
+		Path workingDirectory = Files.createDirectory(tempDir.resolve("workingDirectory"));
+		Mockito.when(directoryProvider.getDirectory(CassandraBuilder.DEFAULT_VERSION))
+				.thenReturn(cassandraDirectory);
+		prepare(cassandraDirectory);
+		initializer.init(workingDirectory, CassandraBuilder.DEFAULT_VERSION);
+		assertWorkingDirectory(workingDirectory);
+	}
+
 	@Test
 	void initializeWorkingDirectorySkipExisting(@TempDir Path tempDir) throws IOException {
 		CassandraDirectoryProvider directoryProvider = Mockito.mock(CassandraDirectoryProvider.class);
@@ -92,6 +125,89 @@ class DefaultWorkingDirectoryInitializerTests {
 		assertThat(workingDirectory.resolve("conf/cassandra.yaml")).hasContent("Hello World");
 	}
 
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void initializeWorkingDirectoryHardLink(@TempDir Path tempDir) throws IOException {
+		CassandraDirectoryProvider directoryProvider = Mockito.mock(CassandraDirectoryProvider.class);
+		WorkingDirectoryInitializer initializer = new DefaultWorkingDirectoryInitializer(
+				directoryProvider, DefaultWorkingDirectoryInitializer.CopyStrategy.HARD_LINK);
+		Path cassandraDirectory = Files.createDirectory(tempDir.resolve("cassandraDirectory"));
+		Path workingDirectory = Files.createDirectory(tempDir.resolve("workingDirectory"));
+		Mockito.when(directoryProvider.getDirectory(CassandraBuilder.DEFAULT_VERSION))
+				.thenReturn(cassandraDirectory);
+		prepare(cassandraDirectory);
+		initializer.init(workingDirectory, CassandraBuilder.DEFAULT_VERSION);
+		assertWorkingDirectory(workingDirectory);
+		Files.write(workingDirectory.resolve("conf/cassandra.yaml"), Collections.singleton("Hello World"));
+		initializer.init(workingDirectory, CassandraBuilder.DEFAULT_VERSION);
+		assertWorkingDirectory(workingDirectory);
+		assertThat(workingDirectory.resolve("conf/cassandra.yaml")).hasContent("");
+		assertThat(Files.isSameFile(workingDirectory.resolve("lib/apache-cassandra-4.0.1.jar"),
+				cassandraDirectory.resolve("lib/apache-cassandra-4.0.1.jar"))).isTrue();
+		assertThat(Files.isSameFile(workingDirectory.resolve("bin/cassandra"),
+				cassandraDirectory.resolve("bin/cassandra"))).isTrue();
+		assertThat(Files.isSameFile(workingDirectory.resolve("conf/cassandra.yaml"),
+				cassandraDirectory.resolve("conf/cassandra.yaml"))).isFalse();
+	}
+
+	@Test
+	void initializeWorkingDirectorySync(@TempDir Path tempDir) throws IOException {
+		CassandraDirectoryProvider directoryProvider = Mockito.mock(CassandraDirectoryProvider.class);
+		WorkingDirectoryInitializer initializer = new DefaultWorkingDirectoryInitializer(
+				directoryProvider, DefaultWorkingDirectoryInitializer.CopyStrategy.SYNC);
+		Path cassandraDirectory = Files.createDirectory(tempDir.resolve("cassandraDirectory"));
+		Path workingDirectory = Files.createDirectory(tempDir.resolve("workingDirectory"));
+		Mockito.when(directoryProvider.getDirectory(CassandraBuilder.DEFAULT_VERSION))
+				.thenReturn(cassandraDirectory);
+		prepare(cassandraDirectory);
+		Files.write(cassandraDirectory.resolve("lib/obsolete.jar"), Collections.singleton("obsolete"));
+		Files.write(cassandraDirectory.resolve("bin/cassandra"), Collections.singleton("script"));
+		initializer.init(workingDirectory, CassandraBuilder.DEFAULT_VERSION);
+		assertWorkingDirectory(workingDirectory);
+		assertThat(workingDirectory.resolve("lib/obsolete.jar")).hasContent("obsolete");
+		Path jar = workingDirectory.resolve("lib/apache-cassandra-4.0.1.jar");
+		Object fileKey = Files.readAttributes(jar, BasicFileAttributes.class).fileKey();
+		//edited in place, the size is the same
+		Files.write(workingDirectory.resolve("bin/cassandra"), Collections.singleton("edited"));
+		Files.setLastModifiedTime(workingDirectory.resolve("bin/cassandra"), FileTime.fromMillis(0));
+		Files.createDirectories(workingDirectory.resolve("data"));
+		Files.write(cassandraDirectory.resolve("conf/cassandra.yaml"), Collections.singleton("changed"));
+		Files.delete(cassandraDirectory.resolve("lib/obsolete.jar"));
+		Files.write(cassandraDirectory.resolve("lib/added.jar"), Collections.singleton("added"));
+		initializer.init(workingDirectory, CassandraBuilder.DEFAULT_VERSION);
+		assertWorkingDirectory(workingDirectory);
+		assertThat(workingDirectory.resolve("conf/cassandra.yaml")).hasContent("changed");
+		assertThat(workingDirectory.resolve("lib/added.jar")).hasContent("added");
+		assertThat(workingDirectory.resolve("lib/obsolete.jar")).doesNotExist();
+		assertThat(workingDirectory.resolve("bin/cassandra")).hasContent("script");
+		assertThat(Files.readAttributes(jar, BasicFileAttributes.class).fileKey()).isEqualTo(fileKey);
+		assertThat(workingDirectory.resolve("data")).isDirectory();
+	}
+
+	@Test
+	void initializeWorkingDirectoryEvicted(@TempDir Path tempDir) throws IOException {
+		CassandraDirectoryProvider directoryProvider = Mockito.mock(CassandraDirectoryProvider.class);
+		WorkingDirectoryInitializer initializer = new DefaultWorkingDirectoryInitializer(
+				directoryProvider, DefaultWorkingDirectoryInitializer.CopyStrategy.REPLACE_EXISTING);
+		Path evicted = Files.createDirectories(tempDir.resolve("4.0.0/apache-cassandra-4.0.0"));
+		Files.createFile(evicted.resolveSibling(DistributionCache.USE_LOCK_FILE));
+		Path cassandraDirectory = Files.createDirectories(tempDir.resolve("4.0.1/apache-cassandra-4.0.1"));
+		Files.createFile(cassandraDirectory.resolveSibling(DistributionCache.USE_LOCK_FILE));
+		Files.createFile(cassandraDirectory.resolveSibling(DistributionCache.SUCCESS_FILE));
+		Path workingDirectory = Files.createDirectory(tempDir.resolve("workingDirectory"));
+		Mockito.when(directoryProvider.getDirectory(CassandraBuilder.DEFAULT_VERSION))
+				.thenReturn(evicted, cassandraDirectory);
+		prepare(cassandraDirectory);
+		initializer.init(workingDirectory, CassandraBuilder.DEFAULT_VERSION);
+		assertWorkingDirectory(workingDirectory);
+		Mockito.verify(directoryProvider, Mockito.times(2)).getDirectory(CassandraBuilder.DEFAULT_VERSION);
+		//the distribution is not locked after it has been copied
+		try (FileLockRegistry.Lock lock = FileLockRegistry.tryLock(
+				cassandraDirectory.resolveSibling(DistributionCache.USE_LOCK_FILE), false)) {
+			assertThat(lock).isNotNull();
+		}
+	}
+
 	private void assertWorkingDirectory(Path workingDirectory) {
 		assertThat(workingDirectory.resolve("bin")).isDirectory().exists();
 		assertThat(workingDirectory.resolve("tools")).isDirectory().exists();
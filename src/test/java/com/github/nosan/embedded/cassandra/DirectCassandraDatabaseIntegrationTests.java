@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collections;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.Row;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DirectCassandraDatabase}.
+ *
+ * @author Dmytro Nosan
+ */
+@DisabledOnOs(OS.WINDOWS)
+class DirectCassandraDatabaseIntegrationTests {
+
+	@ParameterizedTest
+	@ValueSource(strings = {"3.11.11", "4.0.3"})
+	void startDirectly(String version) throws Exception {
+		CassandraBuilder builder = new CassandraBuilder().version(version).directLaunch(true)
+				.addWorkingDirectoryCustomizers((directory, cassandraVersion) -> Files.write(
+						directory.resolve("conf/cassandra-env.sh"), Collections.singleton("JMX_PORT=\"7299\""),
+						StandardOpenOption.APPEND));
+		if (System.getenv("CI") != null) {
+			builder.startupTimeout(Duration.ofMinutes(10));
+		}
+		Cassandra cassandra = builder.build();
+		try {
+			cassandra.start();
+			assertThat(cassandra.isRunning()).isTrue();
+			Path workingDirectory = cassandra.getWorkingDirectory();
+			assertThat(workingDirectory.resolve("logs/gc.log")).exists();
+			Settings settings = cassandra.getSettings();
+			try (CqlSession session = CqlSession.builder()
+					.addContactPoint(new InetSocketAddress(settings.getAddress(), settings.getPort()))
+					.withLocalDatacenter("datacenter1").build()) {
+				Row row = session.execute("SELECT release_version FROM system.local").one();
+				assertThat(row).isNotNull();
+				assertThat(row.getString("release_version")).isEqualTo(version);
+			}
+			//JMX_PORT of cassandra-env.sh
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), 7299)) {
+				assertThat(socket.isConnected()).isTrue();
+			}
+		}
+		finally {
+			cassandra.stop();
+		}
+	}
+
+}
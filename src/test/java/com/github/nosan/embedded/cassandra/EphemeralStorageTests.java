@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link EphemeralStorage}.
+ *
+ * @author Dmytro Nosan
+ */
+class EphemeralStorageTests {
+
+	@Test
+	void createAndDelete(@TempDir Path root) {
+		EphemeralStorage ephemeralStorage = new EphemeralStorage(root, 0);
+		Path first = ephemeralStorage.create();
+		assertThat(first).isDirectory().startsWith(root);
+		Path second = ephemeralStorage.create();
+		assertThat(first).doesNotExist();
+		assertThat(second).isDirectory();
+		ephemeralStorage.delete();
+		assertThat(root).isEmptyDirectory();
+	}
+
+	@Test
+	void sweepLeftovers(@TempDir Path root) throws IOException {
+		Path leftover = Files.createDirectories(root.resolve(EphemeralStorage.PREFIX + "1/data"));
+		Files.createFile(root.resolve(EphemeralStorage.PREFIX + "1.lock"));
+		Path other = Files.createDirectory(root.resolve("other"));
+		EphemeralStorage inUse = new EphemeralStorage(root, 0);
+		Path inUseDirectory = inUse.create();
+		EphemeralStorage ephemeralStorage = new EphemeralStorage(root, 0);
+		Path directory = ephemeralStorage.create();
+		assertThat(leftover.getParent()).doesNotExist();
+		assertThat(other).exists();
+		assertThat(inUseDirectory).exists();
+		assertThat(directory).exists();
+		ephemeralStorage.delete();
+		inUse.delete();
+	}
+
+	@Test
+	void notAvailable(@TempDir Path root) {
+		assertThat(new EphemeralStorage(root.resolve("shm"), 0).create()).isNull();
+	}
+
+}
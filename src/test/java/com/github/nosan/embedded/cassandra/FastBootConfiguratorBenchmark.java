@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.github.nosan.embedded.cassandra.commons.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Startup benchmark for {@link FastBootConfigurator}. Wall-clock timings depend on the machine, so the benchmark runs
+ * only with the {@code benchmark} profile: {@code ./mvnw verify -Pbenchmark}.
+ *
+ * @author Dmytro Nosan
+ */
+@DisabledOnOs(OS.WINDOWS)
+class FastBootConfiguratorBenchmark {
+
+	private static final Logger LOGGER = Logger.get(FastBootConfiguratorBenchmark.class);
+
+	private static final int ITERATIONS = 3;
+
+	@ParameterizedTest
+	@ValueSource(strings = "4.0.3")
+	void fasterStartup(String version) {
+		//warm up, the distribution is downloaded only once
+		startup(version, builder -> {
+		});
+		Duration defaults = startup(version, builder -> {
+		});
+		Duration fastBoot = startup(version, builder -> builder.configure(new FastBootConfigurator()));
+		LOGGER.info("Cassandra {0} median startup time: default {1} ms, fast boot {2} ms", version,
+				defaults.toMillis(), fastBoot.toMillis());
+		assertThat(fastBoot).isLessThan(defaults);
+	}
+
+	private static Duration startup(String version, Consumer<CassandraBuilder> configurer) {
+		List<Duration> durations = new ArrayList<>();
+		for (int i = 0; i < ITERATIONS; i++) {
+			CassandraBuilder builder = new CassandraBuilder().version(version);
+			if (System.getenv("CI") != null) {
+				builder.startupTimeout(Duration.ofMinutes(10));
+			}
+			configurer.accept(builder);
+			Cassandra cassandra = builder.build();
+			long start = System.nanoTime();
+			try {
+				cassandra.start();
+				durations.add(Duration.ofNanos(System.nanoTime() - start));
+			}
+			finally {
+				cassandra.stop();
+			}
+		}
+		Collections.sort(durations);
+		return durations.get(durations.size() / 2);
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link FastBootConfigurator}.
+ *
+ * @author Dmytro Nosan
+ */
+@DisabledOnOs(OS.WINDOWS)
+class FastBootConfiguratorIntegrationTests {
+
+	@ParameterizedTest
+	@ValueSource(strings = {"3.11.11", "4.0.3"})
+	void startFastBoot(String version) {
+		CassandraBuilder builder = new CassandraBuilder().version(version);
+		if (System.getenv("CI") != null) {
+			builder.startupTimeout(Duration.ofMinutes(10));
+		}
+		Cassandra cassandra = builder.configure(new FastBootConfigurator()).build();
+		try {
+			cassandra.start();
+			assertThat(cassandra.isRunning()).isTrue();
+			assertThat(cassandra.getSettings().getPort()).isNotNull();
+		}
+		finally {
+			cassandra.stop();
+		}
+	}
+
+}
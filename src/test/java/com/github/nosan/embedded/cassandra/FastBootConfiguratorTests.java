@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.commons.function.Try;
+import org.junit.platform.commons.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link FastBootConfigurator}.
+ *
+ * @author Dmytro Nosan
+ */
+class FastBootConfiguratorTests {
+
+	private final FastBootConfigurator configurator = new FastBootConfigurator();
+
+	private final CassandraBuilder builder = new CassandraBuilder();
+
+	@Test
+	void configureV4() throws Exception {
+		this.builder.version("4.0.3").configure(this.configurator);
+		assertThat(getMap("systemProperties")).containsEntry("cassandra.skip_wait_for_gossip_to_settle", 0)
+				.containsEntry("cassandra.ring_delay_ms", 0)
+				.containsEntry("cassandra.superuser_setup_delay_ms", 0);
+		assertThat(getMap("configProperties")).containsEntry("num_tokens", 1)
+				.containsEntry("concurrent_reads", 2)
+				.containsEntry("concurrent_writes", 2)
+				.containsEntry("concurrent_counter_writes", 2)
+				.containsEntry("concurrent_materialized_view_writes", 2)
+				.containsEntry("concurrent_compactors", 1)
+				.containsEntry("auto_snapshot", false)
+				.containsEntry("hinted_handoff_enabled", false);
+		assertThat(getJvmOptions()).containsExactly("-XX:TieredStopAtLevel=1");
+	}
+
+	@Test
+	void configureV2() throws Exception {
+		this.builder.version("2.2.19").configure(this.configurator);
+		assertThat(getMap("systemProperties")).containsEntry("cassandra.ring_delay_ms", 0)
+				.doesNotContainKey("cassandra.superuser_setup_delay_ms");
+		assertThat(getMap("configProperties")).containsEntry("num_tokens", 1)
+				.containsEntry("concurrent_counter_writes", 2)
+				.doesNotContainKey("concurrent_materialized_view_writes");
+	}
+
+	@Test
+	void configureV20() throws Exception {
+		this.builder.version("2.0.17").configure(this.configurator);
+		assertThat(getMap("configProperties")).containsEntry("concurrent_writes", 2)
+				.doesNotContainKey("concurrent_counter_writes");
+	}
+
+	@Test
+	void overrideSettings() throws Exception {
+		this.builder.configure(this.configurator).addConfigProperty("num_tokens", 16);
+		assertThat(getMap("configProperties")).containsEntry("num_tokens", 16);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> getMap(String name) throws Exception {
+		Try<Object> value = ReflectionUtils.tryToReadFieldValue(CassandraBuilder.class, name, this.builder);
+		return (Map<String, Object>) value.get();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<String> getJvmOptions() throws Exception {
+		Try<Object> value = ReflectionUtils.tryToReadFieldValue(CassandraBuilder.class, "jvmOptions", this.builder);
+		return (Set<String>) value.get();
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link FileLockRegistry}.
+ *
+ * @author Dmytro Nosan
+ */
+class FileLockRegistryTests {
+
+	@Test
+	void sharedLocksExcludeExclusiveLock(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve(".lock");
+		FileLockRegistry.Lock first = FileLockRegistry.tryLock(file, true);
+		FileLockRegistry.Lock second = FileLockRegistry.tryLock(file, true);
+		assertThat(first).isNotNull();
+		assertThat(second).isNotNull();
+		assertThat(FileLockRegistry.tryLock(file, false)).isNull();
+		first.close();
+		first.close();
+		assertThat(FileLockRegistry.tryLock(file, false)).isNull();
+		second.close();
+		try (FileLockRegistry.Lock exclusive = FileLockRegistry.tryLock(file, false)) {
+			assertThat(exclusive).isNotNull();
+			assertThat(FileLockRegistry.tryLock(file, true)).isNull();
+			assertThat(FileLockRegistry.tryLock(file.getParent().resolve("./.lock"), false)).isNull();
+		}
+		try (FileLockRegistry.Lock shared = FileLockRegistry.tryLock(file, true)) {
+			assertThat(shared).isNotNull();
+		}
+	}
+
+	@Test
+	void tryLockTimeout(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve(".lock");
+		try (FileLockRegistry.Lock exclusive = FileLockRegistry.tryLock(file, false)) {
+			assertThat(exclusive).isNotNull();
+			long start = System.nanoTime();
+			assertThat(FileLockRegistry.tryLock(file, true, 200, TimeUnit.MILLISECONDS)).isNull();
+			assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+		}
+		try (FileLockRegistry.Lock shared = FileLockRegistry.tryLock(file, true, 200, TimeUnit.MILLISECONDS)) {
+			assertThat(shared).isNotNull();
+		}
+	}
+
+}
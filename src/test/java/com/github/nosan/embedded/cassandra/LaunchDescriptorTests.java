@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.nosan.embedded.cassandra.commons.FileUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link LaunchDescriptor}.
+ *
+ * @author Dmytro Nosan
+ */
+class LaunchDescriptorTests {
+
+	@Test
+	void getNotLinked(@TempDir Path workingDirectory) throws IOException {
+		prepare(workingDirectory);
+		LaunchDescriptor descriptor = LaunchDescriptor.get(workingDirectory);
+		assertThat(descriptor.getClasspath()).containsExactly("lib/apache-cassandra-4.0.1.jar", "lib/jamm-0.3.2.jar",
+				"lib/jsr223/jruby/jruby.jar");
+		assertThat(descriptor.getAgents()).containsExactly("lib/jamm-0.3.2.jar");
+		assertThat(descriptor.getOptions("jvm-server.options")).containsExactly("-ea", "-Xss256k");
+		assertThat(descriptor.getOptions("jvm.options")).isNull();
+		assertThat(descriptor.getJavaVersion(Paths.get(System.getProperty("java.home"))))
+				.isEqualTo(Integer.parseInt(System.getProperty("java.specification.version").replace("1.", "")));
+	}
+
+	@Test
+	void getLinked(@TempDir Path directory) throws IOException {
+		Path cassandraDirectory = Files.createDirectories(directory.resolve("4.0.1/apache-cassandra-4.0.1"));
+		Path workingDirectory = Files.createDirectory(directory.resolve("workingDirectory"));
+		Path manifestFile = cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE);
+		prepare(cassandraDirectory);
+		DirectoryManifest.create(cassandraDirectory).save(manifestFile);
+		FileUtils.copy(cassandraDirectory, workingDirectory);
+		LaunchDescriptor.link(cassandraDirectory, workingDirectory);
+
+		LaunchDescriptor descriptor = LaunchDescriptor.get(workingDirectory);
+		assertThat(descriptor.getClasspath()).hasSize(3);
+		assertThat(cassandraDirectory.resolveSibling(LaunchDescriptor.DESCRIPTOR_FILE)).exists();
+		assertThat(LaunchDescriptor.get(workingDirectory)).isSameAs(descriptor);
+		Files.createTempFile(workingDirectory.resolve("conf"), "", "-cassandra.yaml");
+		assertThat(LaunchDescriptor.get(workingDirectory)).isSameAs(descriptor);
+
+		//a new distribution
+		Files.createFile(cassandraDirectory.resolve("lib/netty.jar"));
+		DirectoryManifest.create(cassandraDirectory).save(manifestFile);
+		Files.setLastModifiedTime(manifestFile, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+		Files.copy(cassandraDirectory.resolve("lib/netty.jar"), workingDirectory.resolve("lib/netty.jar"));
+		LaunchDescriptor.link(cassandraDirectory, workingDirectory);
+		assertThat(LaunchDescriptor.get(workingDirectory).getClasspath()).contains("lib/netty.jar");
+
+		//customized after initialization
+		Files.createFile(workingDirectory.resolve("lib/custom.jar"));
+		assertThat(LaunchDescriptor.getDistribution(workingDirectory)).isNull();
+		assertThat(LaunchDescriptor.get(workingDirectory).getClasspath()).contains("lib/custom.jar");
+	}
+
+	@Test
+	void getLinkedCustomizedWithinSameTimestamp(@TempDir Path directory) throws IOException {
+		Path cassandraDirectory = Files.createDirectories(directory.resolve("4.0.1/apache-cassandra-4.0.1"));
+		Path workingDirectory = Files.createDirectory(directory.resolve("workingDirectory"));
+		prepare(cassandraDirectory);
+		DirectoryManifest.create(cassandraDirectory)
+				.save(cassandraDirectory.resolveSibling(DirectoryManifest.MANIFEST_FILE));
+		FileUtils.copy(cassandraDirectory, workingDirectory);
+		//a file system with a coarse timestamp granularity, the file is copied and linked within the same tick
+		FileTime tick = FileTime.fromMillis(System.currentTimeMillis() / 1000 * 1000);
+		Path optionsFile = workingDirectory.resolve("conf/jvm-server.options");
+		Files.setLastModifiedTime(optionsFile, tick);
+		LaunchDescriptor.link(cassandraDirectory, workingDirectory);
+		Files.setLastModifiedTime(workingDirectory.resolve(LaunchDescriptor.MANIFEST_FILE), tick);
+
+		//customized within the same tick, neither the size nor the last modified time is changed
+		Files.write(optionsFile, Arrays.asList("# comment", "-da", " -Xss256k"));
+		Files.setLastModifiedTime(optionsFile, tick);
+		assertThat(LaunchDescriptor.getDistribution(workingDirectory)).isNull();
+		assertThat(LaunchDescriptor.get(workingDirectory).getOptions("jvm-server.options"))
+				.containsExactly("-da", "-Xss256k");
+	}
+
+	private static void prepare(Path directory) throws IOException {
+		Files.createDirectories(directory.resolve("lib/jsr223/jruby"));
+		Files.createDirectories(directory.resolve("conf"));
+		Files.createFile(directory.resolve("lib/apache-cassandra-4.0.1.jar"));
+		Files.createFile(directory.resolve("lib/jamm-0.3.2.jar"));
+		Files.createFile(directory.resolve("lib/jsr223/jruby/jruby.jar"));
+		Files.write(directory.resolve("conf/jvm-server.options"), Arrays.asList("# comment", "-ea", " -Xss256k"));
+		Files.write(directory.resolve("conf/cassandra.yaml"), Collections.singleton(""));
+	}
+
+}
@@ -129,6 +129,7 @@ class NativeTransportParserTests {
 		verify(this.stdout).attach(parser);
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isTrue();
+		assertThat(parser.onParsed()).isDone();
 		parser.close();
 		verify(this.stderr).detach(parser);
 		verify(this.stdout).detach(parser);
@@ -142,9 +143,11 @@ class NativeTransportParserTests {
 		verify(this.stdout).attach(parser);
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isFalse();
+		assertThat(parser.onParsed()).isNotDone();
 		parser.accept("Not starting native transport as requested.");
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isTrue();
+		assertThat(parser.onParsed()).isDone();
 		parser.close();
 		verify(this.stderr).detach(parser);
 		verify(this.stdout).detach(parser);
@@ -158,9 +161,11 @@ class NativeTransportParserTests {
 		verify(this.stdout).attach(parser);
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isFalse();
+		assertThat(parser.onParsed()).isNotDone();
 		parser.accept("Not starting client transports");
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isTrue();
+		assertThat(parser.onParsed()).isDone();
 		parser.close();
 		verify(this.stderr).detach(parser);
 		verify(this.stdout).detach(parser);
@@ -176,6 +181,7 @@ class NativeTransportParserTests {
 		parser.accept("Failed to bind port 9042 on 127.0.0.1.");
 		assertThat(parser.isFailed()).isTrue();
 		assertThat(parser.isParsed()).isTrue();
+		assertThat(parser.onParsed()).isDone();
 		parser.close();
 		verify(this.stderr).detach(parser);
 		verify(this.stdout).detach(parser);
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PortAllocator}.
+ *
+ * @author Dmytro Nosan
+ */
+class PortAllocatorTests {
+
+	@Test
+	void allocateAndRelease(@TempDir Path directory) throws IOException {
+		PortAllocator allocator = new PortAllocator(directory, 42000, 42001);
+		PortAllocator other = new PortAllocator(directory, 42000, 42001);
+		try {
+			int port = allocator.allocate();
+			assertThat(port).isBetween(42000, 42001);
+			assertThat(directory.resolve(port + ".lock")).exists();
+			assertThat(other.allocate()).isBetween(42000, 42001).isNotEqualTo(port);
+			assertThatThrownBy(allocator::allocate).hasMessage("There is no free port in range [42000, 42001]");
+			allocator.release();
+			assertThat(other.allocate()).isEqualTo(port);
+		}
+		finally {
+			allocator.release();
+			other.release();
+		}
+	}
+
+	@Test
+	void skipPortInUse(@TempDir Path directory) throws IOException {
+		int port;
+		PortAllocator allocator;
+		try (ServerSocket ss = new ServerSocket(0)) {
+			port = ss.getLocalPort();
+			allocator = new PortAllocator(directory, port, port);
+			assertThatThrownBy(allocator::allocate).hasMessage("There is no free port in range [%d, %d]", port, port);
+		}
+		try {
+			assertThat(allocator.allocate()).isEqualTo(port);
+		}
+		finally {
+			allocator.release();
+		}
+	}
+
+}
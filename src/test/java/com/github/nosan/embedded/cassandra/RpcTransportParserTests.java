@@ -88,6 +88,7 @@ class RpcTransportParserTests {
 		verify(this.stderr).attach(parser);
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isTrue();
+		assertThat(parser.onParsed()).isDone();
 		parser.close();
 		verify(this.stdout).detach(parser);
 		verify(this.stderr).detach(parser);
@@ -101,9 +102,11 @@ class RpcTransportParserTests {
 		verify(this.stderr).attach(parser);
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isFalse();
+		assertThat(parser.onParsed()).isNotDone();
 		parser.accept(" Not starting RPC server as requested");
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isTrue();
+		assertThat(parser.onParsed()).isDone();
 		parser.close();
 		verify(this.stdout).detach(parser);
 		verify(this.stderr).detach(parser);
@@ -117,9 +120,11 @@ class RpcTransportParserTests {
 		verify(this.stderr).attach(parser);
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isFalse();
+		assertThat(parser.onParsed()).isNotDone();
 		parser.accept("Not starting client transports");
 		assertThat(parser.isStarted()).isFalse();
 		assertThat(parser.isParsed()).isTrue();
+		assertThat(parser.onParsed()).isDone();
 		parser.close();
 		verify(this.stdout).detach(parser);
 		verify(this.stderr).detach(parser);
@@ -41,8 +41,10 @@ class StartupParserTests {
 		StartupParser parser = new StartupParser(this.database);
 		verify(this.stdout).attach(parser);
 		assertThat(parser.isComplete()).isFalse();
+		assertThat(parser.onComplete()).isNotDone();
 		parser.accept("INFO Startup complete");
 		assertThat(parser.isComplete()).isTrue();
+		assertThat(parser.onComplete()).isDone();
 		parser.close();
 		verify(this.stdout).detach(parser);
 	}
@@ -53,6 +55,7 @@ class StartupParserTests {
 		StartupParser parser = new StartupParser(this.database);
 		verify(this.stdout).attach(parser);
 		assertThat(parser.isComplete()).isTrue();
+		assertThat(parser.onComplete()).isDone();
 		parser.close();
 		verify(this.stdout).detach(parser);
 	}
@@ -63,6 +66,7 @@ class StartupParserTests {
 		StartupParser parser = new StartupParser(this.database);
 		verify(this.stdout).attach(parser);
 		assertThat(parser.isComplete()).isTrue();
+		assertThat(parser.onComplete()).isDone();
 		parser.close();
 		verify(this.stdout).detach(parser);
 	}
@@ -26,6 +26,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 
@@ -83,6 +85,21 @@ class UnixCassandraDatabaseTests {
 
 	}
 
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void setExecutableDoesNotChangeLinkedFile(@TempDir Path directory) throws IOException {
+		Path cached = Files.createFile(directory.resolve("cassandra"));
+		Path workingDirectory = this.database.getWorkingDirectory();
+		Path executable = Files.createLink(Files.createDirectory(workingDirectory.resolve("bin"))
+				.resolve("cassandra"), cached);
+
+		this.database.setExecutable(executable);
+
+		assertThat(Files.isExecutable(executable)).isTrue();
+		assertThat(Files.isExecutable(cached)).isFalse();
+		assertThat(Files.isSameFile(cached, executable)).isFalse();
+	}
+
 	@Test
 	void doStartFail() throws IOException {
 		doNothing().when(this.database).setExecutable(any());
@@ -19,6 +19,7 @@ package com.github.nosan.embedded.cassandra;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.Inet6Address;
 import java.net.InetSocketAddress;
@@ -26,17 +27,25 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.AfterAll;
@@ -45,18 +54,24 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 
 import com.github.nosan.embedded.cassandra.WebCassandraDirectoryProvider.CassandraPackage;
 import com.github.nosan.embedded.cassandra.commons.ClassPathResource;
 import com.github.nosan.embedded.cassandra.commons.StreamUtils;
+import com.github.nosan.embedded.cassandra.commons.web.HttpClient;
 import com.github.nosan.embedded.cassandra.commons.web.JdkHttpClient;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link WebCassandraDirectoryProvider}.
@@ -65,6 +80,10 @@ import static org.mockito.Mockito.spy;
  */
 class WebCassandraDirectoryProviderTests {
 
+	private static final String ETAG = "\"apache-cassandra\"";
+
+	private static final Queue<String> RANGES = new ConcurrentLinkedQueue<>();
+
 	private static HttpServer httpServer;
 
 	private static JdkHttpClient httpClient;
@@ -85,10 +104,33 @@ class WebCassandraDirectoryProviderTests {
 		httpServer.createContext("/", exchange -> {
 			String uri = exchange.getRequestURI().toString();
 			ClassPathResource resource = new ClassPathResource(uri.substring(uri.lastIndexOf('/')));
-			long size = Files.size(Paths.get(resource.toURI()));
-			exchange.sendResponseHeaders(200, size);
-			try (InputStream inputStream = resource.getInputStream()) {
-				StreamUtils.copy(inputStream, exchange.getResponseBody());
+			try {
+				byte[] content = StreamUtils.toByteArray(resource.getInputStream());
+				String range = exchange.getRequestHeaders().getFirst("Range");
+				String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+				exchange.getResponseHeaders().set("ETag", ETAG);
+				if (range != null) {
+					RANGES.add(exchange.getRequestURI().getPath() + " " + range);
+				}
+				if (range != null && !uri.startsWith("/no-ranges") && (ifRange == null || ifRange.equals(ETAG))) {
+					String[] bytes = range.substring("bytes=".length()).split("-");
+					//always starts from the beginning of a file, whatever range is requested
+					int start = uri.startsWith("/shifted") ? 0 : Integer.parseInt(bytes[0]);
+					int end = Math.min(Integer.parseInt(bytes[1]), content.length - 1);
+					int length = end - start + 1;
+					exchange.getResponseHeaders().set("Content-Range",
+							String.format("bytes %d-%d/%d", start, end, content.length));
+					exchange.sendResponseHeaders(206, length);
+					//sends only a half of a range and then breaks the connection
+					if (uri.startsWith("/broken") && length > 1) {
+						length = length / 2;
+					}
+					exchange.getResponseBody().write(content, start, length);
+				}
+				else {
+					exchange.sendResponseHeaders(200, content.length);
+					exchange.getResponseBody().write(content);
+				}
 			}
 			finally {
 				exchange.close();
@@ -110,6 +152,7 @@ class WebCassandraDirectoryProviderTests {
 
 	@BeforeEach
 	void setUp(@TempDir Path root) {
+		RANGES.clear();
 		this.directoryProvider = spy(new WebCassandraDirectoryProvider(httpClient, root));
 		this.stdout = System.out;
 		this.stderr = System.err;
@@ -164,6 +207,283 @@ class WebCassandraDirectoryProviderTests {
 
 	}
 
+	@Test
+	void downloadAndExtractRanges() throws IOException {
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz.sha512", getBaseUri(),
+						version)))));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		doReturn(4).when(this.directoryProvider).getDownloadConnections();
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).contains("using 4 connections");
+		assertThat(this.out.toString()).contains("Checksums are identical");
+		assertThat(this.out.toString()).contains("100%");
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void scriptsAreExecutable() throws IOException {
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.emptyMap()));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertThat(Files.isExecutable(directory.resolve("bin/cassandra"))).isTrue();
+		assertThat(Files.isExecutable(directory.resolve("tools/bin/sstablesplit"))).isTrue();
+		assertThat(Files.isExecutable(directory.resolve("tools/bin/sstablesplit.bat"))).isFalse();
+	}
+
+	@Test
+	void downloadAndExtractRangesNotSupported() throws IOException {
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/no-ranges/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz.sha512", getBaseUri(),
+						version)))));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		doReturn(4).when(this.directoryProvider).getDownloadConnections();
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).contains("Byte ranges are not supported");
+		assertThat(this.out.toString()).doesNotContain("using 4 connections");
+		assertThat(this.out.toString()).contains("Checksums are identical");
+		assertThat(this.out.toString()).contains("100%");
+	}
+
+	@Test
+	void downloadAndExtractStreaming() throws IOException {
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz.sha512", getBaseUri(),
+						version)))));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		doReturn(true).when(this.directoryProvider).isStreamingExtraction();
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).contains("Extracting while downloading");
+		assertThat(this.out.toString()).contains("Checksums are identical");
+		assertThat(this.out.toString()).contains("100%");
+		try (Stream<Path> stream = Files.list(directory.getParent())) {
+			assertThat(stream.map(Path::getFileName).map(Path::toString))
+					.containsExactlyInAnyOrder(".lock", ".use.lock", ".manifest", ".success",
+							directory.getFileName().toString());
+		}
+	}
+
+	@Test
+	void downloadAndExtractStreamingFailChecksumMismatch() throws IOException {
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz.sha1", getBaseUri(),
+						version)))));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		doReturn(true).when(this.directoryProvider).isStreamingExtraction();
+
+		assertThatThrownBy(() -> this.directoryProvider.getDirectory(version))
+				.hasStackTraceContaining("Checksum mismatch");
+		assertThat(this.out.toString()).contains("100%");
+		assertThat(this.out.toString()).doesNotContain("Checksums are identical");
+		assertThat(this.out.toString()).doesNotContain("is initialized");
+	}
+
+	@Test
+	void mirrorRacing(@TempDir Path root) throws IOException {
+		Version version = Version.parse("4.0.1");
+		String name = String.format("apache-cassandra-%1$s-bin.tar.gz", version);
+		String brokenBaseUri = "http://localhost:" + httpServer.getAddress().getPort();
+		URI brokenUri = URI.create(String.format("%1$s/%2$s/unknown.tar.gz", brokenBaseUri, version));
+		URI uri = URI.create(String.format("%1$s/%2$s/%3$s", getBaseUri(), version, name));
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(name, brokenUri, Collections.emptyMap()));
+		packages.add(new CassandraPackage(name, uri, Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/%3$s.sha512", getBaseUri(), version, name)))));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		doReturn(true).when(this.directoryProvider).isMirrorRacing();
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).contains("Packages are ranked by mirror: " + getBaseUri());
+		assertThat(this.out.toString()).contains("Checksums are identical");
+		verify(this.directoryProvider, never()).download(any(), any(), eq(brokenUri), any(Path.class));
+		Properties stats = new Properties();
+		try (InputStream is = Files.newInputStream(root.resolve(".embedded-cassandra/cassandra/mirrors.properties"))) {
+			stats.load(is);
+		}
+		assertThat(stats).containsEntry(brokenBaseUri + ".failures", "1")
+				.containsEntry(getBaseUri() + ".failures", "0").containsKey(getBaseUri() + ".ttfb")
+				.containsKey(getBaseUri() + ".throughput");
+	}
+
+	@Test
+	void resumeDownload(@TempDir Path root) throws IOException {
+		Version version = Version.parse("4.0.1");
+		Path downloadDirectory = Files.createDirectories(root.resolve(".embedded-cassandra")
+				.resolve("cassandra").resolve(version.toString()));
+		String name = String.format("apache-cassandra-%1$s-bin.tar.gz", version);
+		byte[] content = StreamUtils.toByteArray(new ClassPathResource(name).getInputStream());
+		byte[] partial = new byte[content.length];
+		System.arraycopy(content, 0, partial, 0, content.length / 2);
+		Files.write(downloadDirectory.resolve(name + ".part"), partial);
+		Files.write(downloadDirectory.resolve(name + ".part.state"), Arrays.asList("validator=" + ETAG,
+				"length=" + content.length, "ranges=1",
+				"range.0=0," + (content.length - 1) + "," + content.length / 2));
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(name, URI.create(String.format("%1$s/%2$s/%3$s", getBaseUri(), version,
+				name)), Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/%3$s.sha512", getBaseUri(), version, name)))));
+		doReturn(2).when(this.directoryProvider).getDownloadConnections();
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).contains("Resuming download from");
+		assertThat(this.out.toString()).contains("Checksums are identical");
+		assertThat(downloadDirectory.resolve(name + ".part")).doesNotExist();
+		assertThat(downloadDirectory.resolve(name + ".part.state")).doesNotExist();
+	}
+
+	@Test
+	void singleConnectionUsesOutputStreamDownload() throws IOException {
+		Version version = Version.parse("4.0.1");
+		String name = String.format("apache-cassandra-%1$s-bin.tar.gz", version);
+		URI uri = URI.create(String.format("%1$s/%2$s/%3$s", getBaseUri(), version, name));
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(name, uri, Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/%3$s.sha512", getBaseUri(), version, name)))));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		verify(this.directoryProvider).download(any(HttpClient.class), eq(version), eq(uri), any(OutputStream.class));
+		assertThat(this.out.toString()).doesNotContain("connections");
+	}
+
+	@Test
+	void resumeSingleConnectionDownload(@TempDir Path root) throws IOException {
+		Version version = Version.parse("4.0.1");
+		String name = String.format("apache-cassandra-%1$s-bin.tar.gz", version);
+		byte[] content = StreamUtils.toByteArray(new ClassPathResource(name).getInputStream());
+		URI uri = URI.create(String.format("%1$s/%2$s/%3$s", getBaseUri(), version, name));
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(name, URI.create(String.format("%1$s/broken/%2$s/%3$s", getBaseUri(),
+				version, name)), Collections.emptyMap()));
+		packages.add(new CassandraPackage(name, uri, Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/%3$s.sha512", getBaseUri(), version, name)))));
+		WebCassandraDirectoryProvider directoryProvider = new WebCassandraDirectoryProvider(httpClient, root) {
+
+			@Override
+			protected List<CassandraPackage> getCassandraPackages(Version version) {
+				return packages;
+			}
+
+		};
+
+		Path directory = directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).contains("Could not download a range").contains("Resuming download from")
+				.doesNotContain("connections");
+		List<String> ranges = RANGES.stream().filter(range -> range.startsWith(uri.getPath() + " "))
+				.map(range -> range.substring(uri.getPath().length() + 1)).collect(Collectors.toList());
+		assertThat(ranges).hasSize(2);
+		assertThat(ranges.get(0)).isEqualTo("bytes=0-0");
+		String[] bytes = ranges.get(1).substring("bytes=".length()).split("-");
+		assertThat(Long.parseLong(bytes[0])).isGreaterThan(content.length / 2);
+		assertThat(Long.parseLong(bytes[1])).isEqualTo(content.length - 1);
+	}
+
+	@Test
+	void failDownloadUnexpectedContentRange() throws IOException {
+		Version version = Version.parse("4.0.1");
+		String name = String.format("apache-cassandra-%1$s-bin.tar.gz", version);
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(name, URI.create(String.format("%1$s/shifted/%2$s/%3$s", getBaseUri(),
+				version, name)), Collections.emptyMap()));
+		packages.add(new CassandraPackage(name, URI.create(String.format("%1$s/%2$s/%3$s", getBaseUri(), version,
+				name)), Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/%3$s.sha512", getBaseUri(), version, name)))));
+		doReturn(2).when(this.directoryProvider).getDownloadConnections();
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).contains("Unexpected Content-Range: 'bytes 0-");
+		assertThat(this.out.toString()).contains("Checksums are identical");
+	}
+
+	@Test
+	void restartDownloadRemoteFileChanged(@TempDir Path root) throws IOException {
+		Version version = Version.parse("4.0.1");
+		Path downloadDirectory = Files.createDirectories(root.resolve(".embedded-cassandra")
+				.resolve("cassandra").resolve(version.toString()));
+		String name = String.format("apache-cassandra-%1$s-bin.tar.gz", version);
+		byte[] content = StreamUtils.toByteArray(new ClassPathResource(name).getInputStream());
+		Files.write(downloadDirectory.resolve(name + ".part"), new byte[content.length]);
+		Files.write(downloadDirectory.resolve(name + ".part.state"), Arrays.asList("validator=\"changed\"",
+				"length=" + content.length, "ranges=1",
+				"range.0=0," + (content.length - 1) + "," + content.length / 2));
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(name, URI.create(String.format("%1$s/%2$s/%3$s", getBaseUri(), version,
+				name)), Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/%3$s.sha512", getBaseUri(), version, name)))));
+		doReturn(2).when(this.directoryProvider).getDownloadConnections();
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).doesNotContain("Resuming download").contains("is discarded");
+		assertThat(this.out.toString()).contains("Checksums are identical");
+	}
+
+	@Test
+	void resumeDownloadFromNextPackage() throws IOException {
+		Version version = Version.parse("4.0.1");
+		String name = String.format("apache-cassandra-%1$s-bin.tar.gz", version);
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(name, URI.create(String.format("%1$s/broken/%2$s/%3$s", getBaseUri(),
+				version, name)), Collections.emptyMap()));
+		packages.add(new CassandraPackage(name, URI.create(String.format("%1$s/%2$s/%3$s", getBaseUri(), version,
+				name)), Collections.singletonMap("SHA-512",
+				URI.create(String.format("%1$s/%2$s/%3$s.sha512", getBaseUri(), version, name)))));
+		doReturn(2).when(this.directoryProvider).getDownloadConnections();
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(this.out.toString()).contains("Could not download a range");
+		assertThat(this.out.toString()).contains("Resuming download from");
+		assertThat(this.out.toString()).contains("Checksums are identical");
+	}
+
 	@Test
 	void failNoPackages() {
 		Version version = Version.parse("4.0.1");
@@ -221,6 +541,154 @@ class WebCassandraDirectoryProviderTests {
 		assertThat(this.out.toString()).contains("100%");
 	}
 
+	@Test
+	void leftoversOfCrashedAttemptAreDeleted(@TempDir Path root) throws IOException {
+		Version version = Version.parse("4.0.1");
+		Path downloadDirectory = root.resolve(".embedded-cassandra").resolve("cassandra").resolve(version.toString());
+		Files.createDirectories(downloadDirectory.resolve(".staging-123").resolve("apache-cassandra-4.0.1"));
+		Files.createDirectories(downloadDirectory.resolve("apache-cassandra-4.0.1").resolve("bin"));
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.emptyMap()));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		try (Stream<Path> stream = Files.list(downloadDirectory)) {
+			assertThat(stream.map(Path::getFileName).map(Path::toString))
+					.containsExactlyInAnyOrder(".lock", ".use.lock", ".manifest", ".success",
+							directory.getFileName().toString());
+		}
+	}
+
+	@Test
+	void excludedDirectoriesAreRecorded(@TempDir Path root) throws IOException {
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.emptyMap()));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		doReturn(Collections.singleton("pylib")).when(this.directoryProvider).getExcludedDirectories();
+
+		Path directory = this.directoryProvider.getDirectory(version);
+
+		assertDirectory(directory);
+		assertThat(directory.resolve("pylib")).doesNotExist();
+		assertThat(directory.resolveSibling(".success")).content().contains("excludes=pylib");
+
+		assertThat(this.directoryProvider.getDirectory(version)).isEqualTo(directory);
+		assertThat(this.out.toString()).doesNotContain("was initialized without");
+
+		WebCassandraDirectoryProvider directoryProvider = spy(new WebCassandraDirectoryProvider(httpClient, root));
+		doReturn(packages).when(directoryProvider).getCassandraPackages(version);
+		assertThat(directoryProvider.getDirectory(version)).isEqualTo(directory);
+		assertThat(this.out.toString()).contains("was initialized without [pylib]");
+		assertThat(directory.resolve("pylib")).exists();
+		assertThat(directory.resolveSibling(".success")).content().contains("excludes=doc,javadoc,licenses");
+	}
+
+	@Test
+	void evictLeastRecentlyUsedVersions(@TempDir Path root) throws IOException {
+		Path cacheDirectory = root.resolve(".embedded-cassandra").resolve("cassandra");
+		Path oldest = createCachedVersion(cacheDirectory.resolve("3.11.9"), 3);
+		Path locked = createCachedVersion(cacheDirectory.resolve("3.11.10"), 2);
+		Path recent = createCachedVersion(cacheDirectory.resolve("3.11.11"), 1);
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.emptyMap()));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		doReturn(1024L).when(this.directoryProvider).getMaxCacheSize();
+
+		try (FileLockRegistry.Lock lock = DistributionCache.use(locked)) {
+			Path directory = this.directoryProvider.getDirectory(version);
+			assertDirectory(directory);
+			assertThat(this.directoryProvider.getDirectory(version)).isEqualTo(directory);
+		}
+
+		assertThat(oldest.resolve(".success")).doesNotExist();
+		assertThat(oldest.resolve("apache-cassandra-3.11.9")).doesNotExist();
+		assertThat(locked.resolve(".success")).exists();
+		assertThat(recent.resolve(".success")).doesNotExist();
+		assertThat(this.out.toString()).contains("is in use and cannot be evicted");
+		assertThat(this.directoryProvider.getCacheMisses()).isEqualTo(1);
+		assertThat(this.directoryProvider.getCacheHits()).isEqualTo(1);
+		assertThat(this.directoryProvider.getCacheEvictions()).isEqualTo(2);
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void deduplicateFilesAcrossVersions() throws IOException {
+		doReturn(true).when(this.directoryProvider).isFileDeduplication();
+		Path[] directories = new Path[2];
+		String[] versions = {"4.0.1", "4.0.2"};
+		for (int i = 0; i < versions.length; i++) {
+			Version version = Version.parse(versions[i]);
+			List<CassandraPackage> packages = new ArrayList<>();
+			packages.add(new CassandraPackage("apache-cassandra-4.0.1-bin.tar.gz", URI.create(String.format(
+					"%1$s/4.0.1/apache-cassandra-4.0.1-bin.tar.gz", getBaseUri())), Collections.emptyMap()));
+			doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+			directories[i] = this.directoryProvider.getDirectory(version);
+			assertDirectory(directories[i]);
+		}
+		assertThat(Files.isSameFile(directories[0].resolve("bin/cassandra"), directories[1].resolve("bin/cassandra")))
+				.isTrue();
+		assertThat(Files.isSameFile(directories[0].resolve("conf/cassandra.yaml"),
+				directories[1].resolve("conf/cassandra.yaml"))).isTrue();
+		assertThat(directories[0].getParent().resolveSibling(".store")).isDirectory();
+	}
+
+	@Test
+	void repairDamagedFiles() throws IOException {
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.emptyMap()));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		Path directory = this.directoryProvider.getDirectory(version);
+		assertDirectory(directory);
+		assertThat(directory.resolveSibling(".manifest")).exists();
+		byte[] config = Files.readAllBytes(directory.resolve("conf/cassandra.yaml"));
+		byte[] script = Files.readAllBytes(directory.resolve("bin/cassandra"));
+		Files.delete(directory.resolve("conf/cassandra.yaml"));
+		Files.write(directory.resolve("bin/cassandra"), new byte[script.length]);
+		Files.setLastModifiedTime(directory.resolve("bin/cassandra"), FileTime.fromMillis(0));
+
+		assertThat(this.directoryProvider.getDirectory(version)).isEqualTo(directory);
+
+		assertThat(this.out.toString()).contains("is damaged").contains("is repaired");
+		assertThat(directory.resolve("conf/cassandra.yaml")).hasBinaryContent(config);
+		assertThat(directory.resolve("bin/cassandra")).hasBinaryContent(script);
+		assertThat(this.directoryProvider.getCacheMisses()).isEqualTo(1);
+		assertThat(this.directoryProvider.getCacheHits()).isEqualTo(1);
+		this.out.reset();
+		assertThat(this.directoryProvider.getDirectory(version)).isEqualTo(directory);
+		assertThat(this.out.toString()).doesNotContain("is damaged");
+	}
+
+	@Test
+	void refreshManifestOfTouchedFiles() throws IOException {
+		Version version = Version.parse("4.0.1");
+		List<CassandraPackage> packages = new ArrayList<>();
+		packages.add(new CassandraPackage(String.format("apache-cassandra-%1$s-bin.tar.gz", version),
+				URI.create(String.format("%1$s/%2$s/apache-cassandra-%2$s-bin.tar.gz", getBaseUri(),
+						version)), Collections.emptyMap()));
+		doReturn(packages).when(this.directoryProvider).getCassandraPackages(version);
+		Path directory = this.directoryProvider.getDirectory(version);
+		Path manifestFile = directory.resolveSibling(".manifest");
+		Files.setLastModifiedTime(directory.resolve("bin/cassandra"), FileTime.fromMillis(1000));
+
+		assertThat(this.directoryProvider.getDirectory(version)).isEqualTo(directory);
+
+		assertThat(this.out.toString()).doesNotContain("is damaged");
+		assertThat(Files.readAllLines(manifestFile)).anyMatch(line -> line.endsWith(" 1000 bin/cassandra"));
+	}
+
 	@Test
 	void failAndThenDownload() throws IOException {
 
@@ -397,6 +865,15 @@ class WebCassandraDirectoryProviderTests {
 		assertThat(wcdp).hasFieldOrPropertyWithValue("downloadDirectory", dir);
 	}
 
+	private static Path createCachedVersion(Path directory, int daysAgo) throws IOException {
+		Path file = Files.createDirectories(directory.resolve("apache-cassandra-" + directory.getFileName())
+				.resolve("lib")).resolve("cassandra.jar");
+		Files.write(file, new byte[512]);
+		Path successFile = Files.write(directory.resolve(".success"), Collections.singleton("size=512"));
+		Files.setLastModifiedTime(successFile, FileTime.from(Instant.now().minus(Duration.ofDays(daysAgo))));
+		return directory;
+	}
+
 	private static void assertDirectory(Path directory) {
 		assertThat(directory.resolve("bin")).exists();
 		assertThat(directory.resolve("lib")).exists();
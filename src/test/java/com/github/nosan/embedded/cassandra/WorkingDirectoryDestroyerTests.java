@@ -19,6 +19,8 @@ package com.github.nosan.embedded.cassandra;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -45,6 +47,34 @@ class WorkingDirectoryDestroyerTests {
 		assertThat(directory).doesNotExist();
 	}
 
+	@Test
+	void deleteAllParallel(@TempDir Path directory) throws IOException {
+		Files.createDirectory(directory.resolve("bin"));
+		Files.createDirectory(directory.resolve("conf"));
+		Files.createDirectories(directory.resolve("data/system/local"));
+		Files.createFile(directory.resolve("conf/cassandra.yaml"));
+		Files.createFile(directory.resolve("data/system/local/data.db"));
+		WorkingDirectoryDestroyer.deleteAll(4).destroy(directory, CassandraBuilder.DEFAULT_VERSION);
+		assertThat(directory).doesNotExist();
+	}
+
+	@Test
+	void deleteAllAsync(@TempDir Path root) throws Exception {
+		Path leftover = Files.createDirectories(root.resolve(TrashDirectory.TRASH_DIRECTORY).resolve("crashed"));
+		Files.createFile(leftover.resolve("cassandra.yaml"));
+		Path directory = Files.createDirectory(root.resolve("cassandra"));
+		Files.createDirectories(directory.resolve("data/system/local"));
+		Files.createFile(directory.resolve("data/system/local/data.db"));
+		WorkingDirectoryDestroyer.deleteAllAsync().destroy(directory, CassandraBuilder.DEFAULT_VERSION);
+		assertThat(directory).doesNotExist();
+		Path trash = root.resolve(TrashDirectory.TRASH_DIRECTORY);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (isNotEmpty(trash) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(trash).isEmptyDirectory();
+	}
+
 	@Test
 	void deleteOnly(@TempDir Path directory) throws IOException {
 		Files.createDirectory(directory.resolve("bin"));
@@ -78,4 +108,10 @@ class WorkingDirectoryDestroyerTests {
 		assertThat(workingDirectory).exists();
 	}
 
+	private static boolean isNotEmpty(Path directory) throws IOException {
+		try (Stream<Path> stream = Files.list(directory)) {
+			return stream.findAny().isPresent();
+		}
+	}
+
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.nosan.embedded.cassandra;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link WorkingDirectoryPool}.
+ *
+ * @author Dmytro Nosan
+ */
+class WorkingDirectoryPoolTests {
+
+	@Test
+	void leaseAndRelease(@TempDir Path directory) throws IOException {
+		WorkingDirectoryPool pool = new WorkingDirectoryPool(directory);
+		WorkingDirectoryPool.Lease first = pool.lease("4.0.1");
+		WorkingDirectoryPool.Lease second = pool.lease("4.0.1");
+		assertThat(first.getDirectory()).isNotEqualTo(second.getDirectory());
+		assertThat(first.isPrepared()).isFalse();
+		Files.createDirectories(first.getDirectory().resolve("conf"));
+		Files.createDirectories(first.getDirectory().resolve("data/system"));
+		Files.createDirectories(first.getDirectory().resolve("logs"));
+		first.prepared();
+		first.release();
+		assertThat(first.getDirectory().resolve("conf")).exists();
+		assertThat(first.getDirectory().resolve("data")).doesNotExist();
+		assertThat(first.getDirectory().resolve("logs")).doesNotExist();
+
+		WorkingDirectoryPool.Lease third = pool.lease("4.0.1");
+		assertThat(third.getDirectory()).isEqualTo(first.getDirectory());
+		assertThat(third.isPrepared()).isTrue();
+		assertThat(first.acquire()).isFalse();
+		assertThat(pool.lease("3.11.11").getDirectory()).isNotEqualTo(first.getDirectory())
+				.isNotEqualTo(second.getDirectory());
+		second.release();
+		third.release();
+	}
+
+	@Test
+	void leaseResetsDirectoryOfCrashedInstance(@TempDir Path directory) throws IOException {
+		WorkingDirectoryPool pool = new WorkingDirectoryPool(directory);
+		//a working directory whose lock was released by a crashed JVM
+		Path workingDirectory = Files.createDirectories(pool.getDirectory("4.0.1").resolve("crashed"));
+		Files.createDirectories(workingDirectory.resolve("conf"));
+		Files.createDirectories(workingDirectory.resolve("data/system"));
+		Files.createDirectories(workingDirectory.resolve("commitlog"));
+		Files.createFile(workingDirectory.resolveSibling("crashed.prepared"));
+
+		WorkingDirectoryPool.Lease lease = pool.lease("4.0.1");
+
+		assertThat(lease.getDirectory()).isEqualTo(workingDirectory);
+		assertThat(lease.isPrepared()).isTrue();
+		assertThat(workingDirectory.resolve("conf")).exists();
+		assertThat(workingDirectory.resolve("data")).doesNotExist();
+		assertThat(workingDirectory.resolve("commitlog")).doesNotExist();
+		lease.release();
+	}
+
+	@Test
+	void clear(@TempDir Path directory) throws IOException {
+		WorkingDirectoryPool pool = new WorkingDirectoryPool(directory);
+		WorkingDirectoryPool.Lease leased = pool.lease("4.0.1");
+		WorkingDirectoryPool.Lease released = pool.lease("4.0.1");
+		released.prepared();
+		released.release();
+		pool.clear();
+		assertThat(leased.getDirectory()).exists();
+		assertThat(released.getDirectory()).doesNotExist();
+		assertThat(released.isPrepared()).isFalse();
+		leased.release();
+	}
+
+	@Test
+	void getKey() {
+		Version version = Version.parse("4.0.1");
+		Map<String, Object> first = new LinkedHashMap<>();
+		first.put("num_tokens", 1);
+		first.put("seed_provider", Collections.singletonList(Collections.singletonMap("class_name", "Simple")));
+		Map<String, Object> second = new LinkedHashMap<>();
+		second.put("seed_provider", Collections.singletonList(Collections.singletonMap("class_name", "Simple")));
+		second.put("num_tokens", 1);
+		String key = WorkingDirectoryPool.getKey(version, null, first);
+		assertThat(key).matches("4\\.0\\.1-[0-9a-f]{64}");
+		assertThat(WorkingDirectoryPool.getKey(version, null, second)).isEqualTo(key);
+		assertThat(WorkingDirectoryPool.getKey(version, "test", second)).isNotEqualTo(key);
+		second.put("num_tokens", 2);
+		assertThat(WorkingDirectoryPool.getKey(version, null, second)).isNotEqualTo(key);
+	}
+
+}
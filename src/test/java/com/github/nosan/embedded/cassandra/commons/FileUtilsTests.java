@@ -18,17 +18,23 @@ package com.github.nosan.embedded.cassandra.commons;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Tests for {@link FileUtils}.
@@ -147,6 +153,60 @@ class FileUtilsTests {
 		assertThat(dest.resolve(folder.getFileName()).resolve(file.getFileName())).doesNotExist();
 	}
 
+	@Test
+	void deleteRecursivelyFolderParallel() throws IOException {
+		Path root = newFolder();
+		for (int i = 0; i < 10; i++) {
+			Path folder = newFolder(newFolder(root));
+			newFile(folder);
+			newFile(folder.getParent());
+		}
+		assertThat(FileUtils.delete(root, 4)).isTrue();
+		assertThat(root).doesNotExist();
+		assertThat(FileUtils.delete(root, 4)).isFalse();
+	}
+
+	@Test
+	void copyDirParallel() throws IOException {
+		Path src = newFolder();
+		for (int i = 0; i < 10; i++) {
+			Path folder = newFolder(newFolder(src));
+			Files.write(newFile(folder), Collections.singleton(Integer.toString(i)));
+			newFile(folder.getParent());
+		}
+		Path skipped = newFolder(src);
+		newFile(skipped);
+		Path dest = this.temporaryFolder.resolve("dest");
+		FileUtils.copy(src, dest, 4, (path, attrs) -> !path.equals(skipped), StandardCopyOption.REPLACE_EXISTING);
+		assertThat(snapshot(dest)).isEqualTo(snapshot(src).stream()
+				.filter(path -> !path.startsWith(src.relativize(skipped).toString())).collect(Collectors.toList()));
+		try (Stream<Path> stream = Files.walk(src)) {
+			for (Path file : stream.filter(Files::isRegularFile).filter(path -> !path.startsWith(skipped))
+					.collect(Collectors.toList())) {
+				assertThat(dest.resolve(src.relativize(file))).hasSameBinaryContentAs(file);
+			}
+		}
+	}
+
+	@Test
+	void copyDirParallelReportsAllErrors() throws IOException {
+		Path src = newFolder();
+		for (int i = 0; i < 4; i++) {
+			newFile(newFolder(src));
+		}
+		Path dest = this.temporaryFolder.resolve("dest");
+		FileUtils.copy(src, dest, 4, null);
+		assertThatThrownBy(() -> FileUtils.copy(src, dest, 4, null))
+				.isInstanceOf(FileAlreadyExistsException.class)
+				.satisfies(ex -> assertThat(ex.getSuppressed()).hasSize(3));
+	}
+
+	@Test
+	void invalidParallelism() {
+		assertThatThrownBy(() -> FileUtils.delete(this.temporaryFolder, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
 	@Test
 	void checksum() throws IOException, NoSuchAlgorithmException {
 		Path path = Paths.get(new ClassPathResource("schema.cql").toURI());
@@ -156,6 +216,12 @@ class FileUtilsTests {
 		assertThat(path).hasDigest("MD5", FileUtils.checksum(path, "MD5"));
 	}
 
+	private static List<String> snapshot(Path directory) throws IOException {
+		try (Stream<Path> stream = Files.walk(directory)) {
+			return stream.map(path -> directory.relativize(path).toString()).sorted().collect(Collectors.toList());
+		}
+	}
+
 	private Path newFile() throws IOException {
 		return newFile(this.temporaryFolder);
 	}
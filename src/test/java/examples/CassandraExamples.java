@@ -30,7 +30,9 @@ import org.slf4j.LoggerFactory;
 
 import com.github.nosan.embedded.cassandra.Cassandra;
 import com.github.nosan.embedded.cassandra.CassandraBuilder;
+import com.github.nosan.embedded.cassandra.CassandraPool;
 import com.github.nosan.embedded.cassandra.DefaultWorkingDirectoryInitializer;
+import com.github.nosan.embedded.cassandra.FastBootConfigurator;
 import com.github.nosan.embedded.cassandra.Settings;
 import com.github.nosan.embedded.cassandra.SimpleSeedProviderConfigurator;
 import com.github.nosan.embedded.cassandra.Version;
@@ -223,6 +225,31 @@ public class CassandraExamples {
 		//end::configure-seeds[]
 	}
 
+	private void fastBoot() {
+		//tag::fast-boot[]
+		new CassandraBuilder()
+				.version("4.0.3") //<1>
+				.configure(new FastBootConfigurator())
+				.build();
+		//end::fast-boot[]
+	}
+
+	private void pool() {
+		//tag::pool[]
+		CassandraBuilder builder = new CassandraBuilder()
+				.addSystemProperty("cassandra.native_transport_port", 0)
+				.addSystemProperty("cassandra.rpc_port", 0)
+				.addSystemProperty("cassandra.storage_port", 0)
+				.addSystemProperty("cassandra.jmx.local.port", 0)
+				.configure(new SimpleSeedProviderConfigurator("localhost:0")); //<1>
+		try (CassandraPool cassandra = new CassandraPool(builder, 2)) {
+			cassandra.start(); //<2>
+			//...
+			cassandra.stop();
+		}
+		//end::pool[]
+	}
+
 	private void startupTimeout() {
 		//tag::startup-timeout[]
 		new CassandraBuilder()